@@ -2,10 +2,12 @@ package com.arhum.validator;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 import java.util.logging.Logger;
 
 @SpringBootApplication
+@EnableScheduling
 public class ValidatorApplication {
 	public static void main(String[] args) {
 		SpringApplication.run(ValidatorApplication.class, args);
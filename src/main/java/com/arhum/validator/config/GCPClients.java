@@ -21,6 +21,12 @@ public class GCPClients {
         return FirewallsClient.create();
     }
 
+    @Bean(destroyMethod = "close")
+    public GlobalOperationsClient globalOperationsClient() throws IOException {
+        logger.info("INIT GLOBAL OPERATIONS CLIENT");
+        return GlobalOperationsClient.create();
+    }
+
     @Bean(destroyMethod = "close")
     public InstancesClient instancesClient() throws IOException {
         logger.info("INIT INSTANCE CLIENT");
@@ -0,0 +1,27 @@
+package com.arhum.validator.config.circuit;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "circuit-breaker")
+public class CircuitBreakerConfig {
+
+    // consecutive failures, from either rcon or the query port, before the target is considered down
+    private int failureThreshold = 3;
+
+    // how long to fail fast before letting a probe through. a restart usually takes longer than this
+    private Duration openDuration = Duration.ofSeconds(10);
+
+    // a target nobody called for this long loses its circuit, failures and all
+    private Duration idleAfter = Duration.ofMinutes(10);
+
+    // targets with a circuit at once, calls to any more go through without one
+    private int maxTracked = 1000;
+}
@@ -0,0 +1,256 @@
+package com.arhum.validator.config.circuit;
+
+import com.arhum.validator.exception.ServiceUnavailableException;
+import com.arhum.validator.model.enums.CircuitState;
+import com.arhum.validator.model.response.CircuitStateResponse;
+import org.reactivestreams.Publisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * One circuit breaker per game server host, shared by the RCON and the UDP query paths. Both talk to the same
+ * machine, if one of them can't reach it there is no point in the other waiting out its own timeout.
+ * <p>
+ * After {@code failureThreshold} failures in a row the circuit opens and every call fails straight away with a 503.
+ * Once {@code openDuration} has passed a single call is let through as a probe, its outcome closes the circuit or
+ * opens it for another period.
+ * <p>
+ * Only network level failures (IOException) count. A rejected command or a full queue says nothing about the server.
+ * <p>
+ * A circuit is only kept while it knows something: one that is closed, without failures and without calls in flight
+ * is dropped right away, anything else once nobody has called the target for {@code idleAfter}. At most
+ * {@code maxTracked} targets have a circuit, calls to targets beyond that go through unprotected.
+ */
+@Component
+public class ServerCircuitBreaker {
+    private static final Logger logger = LoggerFactory.getLogger(ServerCircuitBreaker.class);
+
+    private final CircuitBreakerConfig config;
+    private final Map<String, Circuit> circuits = new ConcurrentHashMap<>();
+
+    public ServerCircuitBreaker(CircuitBreakerConfig config) {
+        this.config = config;
+    }
+
+    /**
+     * For blocking callers. Report the outcome on the returned permit, or release it if the call never happened.
+     *
+     * @throws ServiceUnavailableException if the circuit is open
+     */
+    public Permit acquire(String target) {
+        boolean[] probe = new boolean[1];
+        // admitting under the map's lock, so the circuit can't be dropped between being looked up and being used
+        Circuit circuit = circuits.compute(target, (key, current) -> {
+            if (current == null && circuits.size() >= config.getMaxTracked()) {
+                return null;
+            }
+            Circuit c = current != null ? current : new Circuit(key);
+            probe[0] = c.admit();
+            return c;
+        });
+        if (circuit == null) {
+            logger.debug("tracking {} circuits already, {} is not protected", config.getMaxTracked(), target);
+        }
+        return new Permit(circuit, probe[0]);
+    }
+
+    public <T> Mono<T> protect(String target, Mono<T> work) {
+        return Mono.from(protectMany(target, work));
+    }
+
+    /**
+     * The first element (or completing empty) counts as success, an IOException as failure. Cancelling counts as
+     * neither, a probe that gets cancelled just lets the next caller probe.
+     */
+    public <T> Flux<T> protectMany(String target, Publisher<T> work) {
+        return Flux.defer(() -> {
+            Permit permit = acquire(target);
+            return Flux.from(work)
+                    .doOnNext(v -> permit.success())
+                    .doOnError(e -> {
+                        if (e instanceof IOException) {
+                            permit.failure();
+                        } else {
+                            permit.release();
+                        }
+                    })
+                    .doFinally(signal -> {
+                        if (signal == SignalType.ON_COMPLETE) {
+                            permit.success();
+                        } else {
+                            permit.release();
+                        }
+                    });
+        });
+    }
+
+    public CircuitStateResponse getState(String target) {
+        Circuit circuit = circuits.get(target);
+        if (circuit == null) {
+            CircuitStateResponse response = new CircuitStateResponse();
+            response.setTarget(target);
+            response.setState(CircuitState.CLOSED); // never talked to it, nothing known against it
+            return response;
+        }
+        return circuit.snapshot();
+    }
+
+    /**
+     * Drops the circuits of targets nobody called for a while, unless they are open and still failing fast.
+     */
+    @Scheduled(fixedDelayString = "${circuit-breaker.sweep-interval-ms:60000}")
+    public void evictIdle() {
+        long idleBefore = System.currentTimeMillis() - config.getIdleAfter().toMillis();
+        circuits.values().forEach(circuit -> circuits.computeIfPresent(circuit.target,
+                (key, current) -> current == circuit && circuit.isIdleSince(idleBefore) ? null : current));
+    }
+
+    int size() {
+        return circuits.size();
+    }
+
+    // a closed circuit without failures knows nothing a new one wouldn't
+    private void dropIfClean(Circuit circuit) {
+        circuits.computeIfPresent(circuit.target, (key, current) -> current == circuit && circuit.isClean() ? null : current);
+    }
+
+    /**
+     * Outcome of one call. Only the first report counts, the rest are ignored, so it is safe to report from several
+     * callbacks.
+     */
+    public final class Permit {
+        private final Circuit circuit;
+        private final boolean probe;
+        private final AtomicBoolean reported = new AtomicBoolean(false);
+
+        private Permit(Circuit circuit, boolean probe) {
+            this.circuit = circuit;
+            this.probe = probe;
+        }
+
+        public void success() {
+            if (circuit != null && reported.compareAndSet(false, true)) {
+                circuit.onSuccess(probe);
+                dropIfClean(circuit);
+            }
+        }
+
+        public void failure() {
+            if (circuit != null && reported.compareAndSet(false, true)) {
+                circuit.onFailure(probe);
+            }
+        }
+
+        // the call didn't happen or its outcome says nothing about the server
+        public void release() {
+            if (circuit != null && reported.compareAndSet(false, true)) {
+                circuit.onRelease(probe);
+                dropIfClean(circuit);
+            }
+        }
+    }
+
+    private final class Circuit {
+        private final String target;
+
+        // guarded by this
+        private CircuitState state = CircuitState.CLOSED;
+        private int consecutiveFailures;
+        private long openedAt;
+        private boolean probeInFlight;
+        private int calls; // admitted and not reported yet
+        private long lastCalledAt;
+
+        private Circuit(String target) {
+            this.target = target;
+        }
+
+        // true if the caller is the half open probe
+        private synchronized boolean admit() {
+            lastCalledAt = System.currentTimeMillis();
+            if (state == CircuitState.CLOSED) {
+                calls++;
+                return false;
+            }
+
+            if (state == CircuitState.OPEN && System.currentTimeMillis() - openedAt >= config.getOpenDuration().toMillis()) {
+                state = CircuitState.HALF_OPEN;
+            }
+
+            if (state == CircuitState.HALF_OPEN && !probeInFlight) {
+                probeInFlight = true;
+                calls++;
+                return true;
+            }
+            throw new ServiceUnavailableException("The minecraft server at " + target + " is not reachable right now", 5030);
+        }
+
+        private synchronized void onSuccess(boolean probe) {
+            if (probe || state != CircuitState.CLOSED) {
+                logger.info("circuit for {} closed, server is reachable again", target);
+            }
+            state = CircuitState.CLOSED;
+            consecutiveFailures = 0;
+            probeInFlight = false;
+            calls--;
+        }
+
+        private synchronized void onFailure(boolean probe) {
+            calls--;
+            consecutiveFailures++;
+            if (probe) {
+                probeInFlight = false;
+                open();
+            } else if (state == CircuitState.CLOSED && consecutiveFailures >= config.getFailureThreshold()) {
+                open();
+            }
+        }
+
+        private synchronized void onRelease(boolean probe) {
+            calls--;
+            if (probe) {
+                probeInFlight = false;
+            }
+        }
+
+        private synchronized boolean isClean() {
+            return calls == 0 && state == CircuitState.CLOSED && consecutiveFailures == 0;
+        }
+
+        private synchronized boolean isIdleSince(long idleBefore) {
+            boolean failingFast = state == CircuitState.OPEN
+                    && System.currentTimeMillis() - openedAt < config.getOpenDuration().toMillis();
+            return calls == 0 && lastCalledAt < idleBefore && !failingFast;
+        }
+
+        // caller holds the lock
+        private void open() {
+            if (state != CircuitState.OPEN) {
+                logger.warn("circuit for {} opened after {} failures in a row", target, consecutiveFailures);
+            }
+            state = CircuitState.OPEN;
+            openedAt = System.currentTimeMillis();
+        }
+
+        private synchronized CircuitStateResponse snapshot() {
+            CircuitStateResponse response = new CircuitStateResponse();
+            response.setTarget(target);
+            response.setState(state);
+            response.setConsecutiveFailures(consecutiveFailures);
+            if (state == CircuitState.OPEN) {
+                response.setRetryAfterMillis(Math.max(0, openedAt + config.getOpenDuration().toMillis() - System.currentTimeMillis()));
+            }
+            return response;
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.arhum.validator.config.firewall;
+
+import com.arhum.validator.entity.AllowedIp;
+import com.arhum.validator.repository.AllowedIpRepo;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Who added which address to the firewall and when they last asked for it, in Postgres. The rule used to be emptied
+ * once it went past 50 addresses, which kicked everybody off at the same time and had them all re-add at once.
+ * Instead the reaper takes out addresses nobody re-added within {@code ttl}, and the least recently seen ones past
+ * {@code maxEntries}, in one patch per shard through {@link FirewallShards}. Ranges that were not added through
+ * add-ip have no row and are left alone.
+ */
+@Component
+public class AllowedIpRegistry {
+    private static final Logger logger = LoggerFactory.getLogger(AllowedIpRegistry.class);
+
+    private final AllowedIpRepo repo;
+    private final FirewallExpiryConfig config;
+    private final FirewallShards shards;
+    private final FirewallRangeCache rangeCache;
+
+    private final AtomicBoolean reaping = new AtomicBoolean();
+
+    // postgres work after an add, off the shard's writer so its next patch doesn't wait on it
+    private final ExecutorService recorder = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "allowed-ip-recorder");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public AllowedIpRegistry(AllowedIpRepo repo, FirewallExpiryConfig config, FirewallShards shards,
+                             FirewallRangeCache rangeCache) {
+        this.repo = repo;
+        this.config = config;
+        this.shards = shards;
+        this.rangeCache = rangeCache;
+    }
+
+    /**
+     * Pushes the expiry of {@code address} back if it is ours and still in the rule. False when it has to be added.
+     */
+    public synchronized boolean refresh(String address) {
+        AllowedIp row = repo.findByAddress(address).orElse(null);
+        if (row == null || !rangeCache.isListed(address)) {
+            return false;
+        }
+        row.setLastSeen(OffsetDateTime.now());
+        repo.save(row);
+        return true;
+    }
+
+    /**
+     * {@code address} is in the rule now, added or found there for {@code owner}. Saved in the background, the
+     * returned future completes either way. A failure is only logged, the address is in the rule regardless and the
+     * next add-ip for it records it again.
+     */
+    public CompletableFuture<Void> record(String address, String owner) {
+        return CompletableFuture.runAsync(() -> save(address, owner), recorder)
+                .exceptionally(e -> {
+                    Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                    logger.warn("{} is in the firewall but could not be recorded :: {}", address, cause.getMessage());
+                    return null;
+                });
+    }
+
+    @PreDestroy
+    public void close() {
+        recorder.shutdown();
+    }
+
+    // going past maxEntries starts a reap right away instead of waiting for the schedule
+    private synchronized void save(String address, String owner) {
+        AllowedIp row = repo.findByAddress(address).orElseGet(AllowedIp::new);
+        if (row.getId() == null) {
+            row.setAddress(address);
+            row.setOwner(owner);
+        }
+        row.setLastSeen(OffsetDateTime.now());
+        try {
+            repo.save(row);
+        } catch (DataIntegrityViolationException e) {
+            // another instance recorded it first, theirs is as good
+            logger.debug("{} was recorded concurrently", address);
+        }
+
+        if (config.isEnabled() && repo.count() > config.getMaxEntries()) {
+            reap();
+        }
+        shards.requestRebalance();
+    }
+
+    /**
+     * The rule was replaced as a whole (purge, make-public), none of the addresses are in it anymore.
+     */
+    public synchronized void forgetAll() {
+        repo.deleteAllInBatch();
+    }
+
+    @Scheduled(fixedDelayString = "${google.compute.firewall-expiry.reap-interval-ms:300000}",
+            initialDelayString = "${google.compute.firewall-expiry.reap-interval-ms:300000}")
+    public void reap() {
+        if (!config.isEnabled() || !reaping.compareAndSet(false, true)) {
+            return;
+        }
+
+        Map<String, AllowedIp> victims = new HashMap<>();
+        try {
+            OffsetDateTime cutoff = OffsetDateTime.now().minus(config.getTtl());
+            for (AllowedIp row : repo.findByLastSeenBefore(cutoff)) {
+                victims.put(row.getAddress(), row);
+            }
+            long over = repo.count() - victims.size() - config.getMaxEntries();
+            if (over > 0) {
+                for (AllowedIp row : repo.findByLastSeenGreaterThanEqualOrderByLastSeenAsc(cutoff, PageRequest.of(0, (int) over))) {
+                    victims.put(row.getAddress(), row);
+                }
+            }
+        } catch (RuntimeException e) {
+            reaping.set(false);
+            logger.warn("could not look for expired firewall entries :: {}", e.getMessage());
+            return;
+        }
+        if (victims.isEmpty()) {
+            reaping.set(false);
+            return;
+        }
+
+        // in line with the adds of each shard, so an address re-added since it was picked is still spared
+        shards.remove(victims.keySet(), address -> unchanged(victims.get(address))).whenComplete((ignored, error) -> {
+            try {
+                if (error != null) {
+                    logger.warn("could not remove {} expired firewall entries :: {}", victims.size(), error.getMessage());
+                    return;
+                }
+                // a row refreshed after its address was taken out is kept, the next add-ip sees it's not listed and adds it
+                spareRefreshed(victims);
+                repo.deleteAllInBatch(victims.values());
+                logger.info("removed {} expired or least recently seen firewall entries", victims.size());
+            } catch (RuntimeException e) {
+                logger.warn("removed {} firewall entries but not their rows :: {}", victims.size(), e.getMessage());
+            } finally {
+                reaping.set(false);
+            }
+        });
+    }
+
+    private synchronized boolean unchanged(AllowedIp picked) {
+        return repo.findById(picked.getId()).map(now -> now.getLastSeen().isEqual(picked.getLastSeen())).orElse(false);
+    }
+
+    // rows gone meanwhile (purge) have nothing left to remove from the rule either
+    private synchronized void spareRefreshed(Map<String, AllowedIp> victims) {
+        Map<String, AllowedIp> current = new HashMap<>();
+        for (AllowedIp row : repo.findAllById(victims.values().stream().map(AllowedIp::getId).toList())) {
+            current.put(row.getAddress(), row);
+        }
+        victims.values().removeIf(picked -> {
+            AllowedIp now = current.get(picked.getAddress());
+            return now == null || !now.getLastSeen().isEqual(picked.getLastSeen());
+        });
+    }
+}
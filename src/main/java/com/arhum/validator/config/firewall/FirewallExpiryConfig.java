@@ -0,0 +1,23 @@
+package com.arhum.validator.config.firewall;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "google.compute.firewall-expiry")
+public class FirewallExpiryConfig {
+
+    private boolean enabled = true;
+
+    // an address nobody re-added for this long is taken out of the rule
+    private Duration ttl = Duration.ofDays(7);
+
+    // past this many addresses the least recently seen ones go, whatever their age
+    private int maxEntries = 50;
+}
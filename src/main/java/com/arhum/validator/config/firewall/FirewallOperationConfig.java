@@ -0,0 +1,32 @@
+package com.arhum.validator.config.firewall;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "google.compute.firewall-operations")
+public class FirewallOperationConfig {
+
+    // first look at a running gcp operation, then every time multiplier longer up to max-poll-delay
+    private Duration initialPollDelay = Duration.ofMillis(500);
+    private double pollMultiplier = 1.5;
+    private Duration maxPollDelay = Duration.ofSeconds(5);
+
+    // a gcp operation still running after this is given up on
+    private Duration operationTimeout = Duration.ofMinutes(5);
+
+    // finished operations stay readable on /firewall/operations/{id} this long
+    private Duration retention = Duration.ofHours(1);
+
+    // add-ip is refused past this many unfinished operations, purge and make-public never are
+    private int maxPending = 1000;
+
+    // past this many the oldest finished operations are dropped, retention or not
+    private int maxTracked = 1000;
+}
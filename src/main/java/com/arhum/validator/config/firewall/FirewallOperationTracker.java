@@ -0,0 +1,197 @@
+package com.arhum.validator.config.firewall;
+
+import com.arhum.validator.exception.BaseException;
+import com.arhum.validator.exception.InternalServerException;
+import com.arhum.validator.exception.TooManyRequestsException;
+import com.arhum.validator.model.enums.FirewallOperationStatus;
+import com.arhum.validator.model.enums.FirewallOperationType;
+import com.arhum.validator.model.response.FirewallOperationResponse;
+import com.google.cloud.compute.v1.GlobalOperationsClient;
+import com.google.cloud.compute.v1.Operation;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Firewall changes run in the background, the endpoints only hand out an id to look them up by. Two jobs here:
+ * <ul>
+ *     <li>our operations, one per request, kept until {@code retention} after they finished or until
+ *     {@code maxTracked} newer ones did, whichever comes first</li>
+ *     <li>gcp operations, polled on their global operation with a growing delay until they are DONE, instead of
+ *     blocking on the client's own future</li>
+ * </ul>
+ * Kept in memory, an operation doesn't outlive a restart. add-ip needs no login, so only it is ever refused, and only
+ * for too many unfinished ones. Finished ones make room instead, and purge and make-public always go through.
+ */
+@Component
+public class FirewallOperationTracker {
+    private static final Logger logger = LoggerFactory.getLogger(FirewallOperationTracker.class);
+
+    private final GlobalOperationsClient operationsClient;
+    private final FirewallOperationConfig config;
+    private final String projectId;
+
+    private final ScheduledExecutorService poller = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "firewall-operations");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Map<String, FirewallOperationResponse> operations = new ConcurrentHashMap<>();
+
+    // finished ones in the order they finished, the oldest go first
+    private final Queue<FirewallOperationResponse> finished = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+
+    public FirewallOperationTracker(GlobalOperationsClient operationsClient, FirewallOperationConfig config,
+                                    @Value("${google.project-id}") String projectId) {
+        this.operationsClient = operationsClient;
+        this.config = config;
+        this.projectId = projectId;
+    }
+
+    /**
+     * Registers a change that finishes with {@code result}. Its outcome is readable by the returned id until
+     * {@code retention} after it's over, or until it is one of the oldest past {@code maxTracked}. {@code done} is
+     * the message when it succeeds.
+     */
+    public FirewallOperationResponse start(FirewallOperationType type, String target, String done, CompletableFuture<?> result) {
+        return start(type, target, result.thenApply(ignored -> done));
+    }
+
+    /**
+     * Same, for a change that says itself what its message is when it succeeds.
+     */
+    public FirewallOperationResponse start(FirewallOperationType type, String target, CompletableFuture<String> message) {
+        if (type == FirewallOperationType.ADD_IP && pending.get() >= config.getMaxPending()) {
+            throw new TooManyRequestsException("Too many firewall changes in progress, try again shortly", 4291);
+        }
+
+        FirewallOperationResponse operation = new FirewallOperationResponse();
+        operation.setId(UUID.randomUUID().toString());
+        operation.setType(type);
+        operation.setTarget(target);
+        operation.setStatus(FirewallOperationStatus.PENDING);
+        operation.setCreatedAt(System.currentTimeMillis());
+        pending.incrementAndGet();
+        operations.put(operation.getId(), operation);
+        evict();
+
+        message.whenComplete((done, error) -> finish(operation, done, error));
+        return copy(operation);
+    }
+
+    public FirewallOperationResponse get(String id) {
+        evict();
+        FirewallOperationResponse operation = operations.get(id);
+        return operation == null ? null : copy(operation);
+    }
+
+    /**
+     * Completes once gcp says {@code started} is DONE, with the final state of the operation. Whether that has an
+     * error is up to the caller.
+     */
+    public CompletableFuture<Operation> track(Operation started) {
+        CompletableFuture<Operation> result = new CompletableFuture<>();
+        if (started.getStatus() == Operation.Status.DONE) {
+            result.complete(started);
+            return result;
+        }
+        long giveUpAt = System.currentTimeMillis() + config.getOperationTimeout().toMillis();
+        poll(started.getName(), config.getInitialPollDelay().toMillis(), giveUpAt, result);
+        return result;
+    }
+
+    @PreDestroy
+    public void close() {
+        poller.shutdownNow();
+    }
+
+    private void poll(String name, long delay, long giveUpAt, CompletableFuture<Operation> result) {
+        poller.schedule(() -> {
+            try {
+                Operation operation = operationsClient.get(projectId, name);
+                if (operation.getStatus() == Operation.Status.DONE) {
+                    result.complete(operation);
+                    return;
+                }
+                if (System.currentTimeMillis() >= giveUpAt) {
+                    result.completeExceptionally(new InternalServerException(
+                            "Firewall operation " + name + " still " + operation.getStatus() + " after " + config.getOperationTimeout(), 500));
+                    return;
+                }
+                long next = Math.min((long) (delay * config.getPollMultiplier()), config.getMaxPollDelay().toMillis());
+                poll(name, next, giveUpAt, result);
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+
+    private void finish(FirewallOperationResponse operation, String done, Throwable error) {
+        synchronized (operation) {
+            if (error == null) {
+                operation.setStatus(FirewallOperationStatus.DONE);
+                operation.setMessage(done);
+                operation.setCode(200);
+            } else {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                operation.setStatus(FirewallOperationStatus.FAILED);
+                if (cause instanceof BaseException e) {
+                    operation.setMessage(e.getMessage());
+                    operation.setCode(e.getCode());
+                } else {
+                    operation.setMessage("Failed to patch firewall: " + cause.getMessage());
+                    operation.setCode(500);
+                }
+                logger.info("firewall operation {} ({}) failed :: {}", operation.getId(), operation.getType(), operation.getMessage());
+            }
+            operation.setFinishedAt(System.currentTimeMillis());
+        }
+        pending.decrementAndGet();
+        finished.add(operation);
+        evict();
+    }
+
+    // drops finished operations past retention, and the oldest finished ones while there are too many
+    private void evict() {
+        long expired = System.currentTimeMillis() - config.getRetention().toMillis();
+        FirewallOperationResponse oldest;
+        while ((oldest = finished.peek()) != null
+                && (oldest.getFinishedAt() < expired || operations.size() > config.getMaxTracked())) {
+            if (finished.remove(oldest)) {
+                operations.remove(oldest.getId());
+            }
+        }
+    }
+
+    // the stored one keeps changing on other threads, callers get what it was at one point
+    private static FirewallOperationResponse copy(FirewallOperationResponse operation) {
+        synchronized (operation) {
+            FirewallOperationResponse copy = new FirewallOperationResponse();
+            copy.setId(operation.getId());
+            copy.setType(operation.getType());
+            copy.setTarget(operation.getTarget());
+            copy.setStatus(operation.getStatus());
+            copy.setMessage(operation.getMessage());
+            copy.setCode(operation.getCode());
+            copy.setCreatedAt(operation.getCreatedAt());
+            copy.setFinishedAt(operation.getFinishedAt());
+            return copy;
+        }
+    }
+}
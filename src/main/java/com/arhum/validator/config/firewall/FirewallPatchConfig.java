@@ -0,0 +1,21 @@
+package com.arhum.validator.config.firewall;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "google.compute.firewall-patch")
+public class FirewallPatchConfig {
+
+    // adds that come in within this long of the first one go out as one patch
+    private Duration batchWindow = Duration.ofMillis(250);
+
+    // patches per batch before giving up on addresses someone else keeps overwriting
+    private int maxAttempts = 3;
+}
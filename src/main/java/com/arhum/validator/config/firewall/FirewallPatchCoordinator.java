@@ -0,0 +1,211 @@
+package com.arhum.validator.config.firewall;
+
+import com.arhum.validator.exception.InternalServerException;
+import com.arhum.validator.model.enums.FirewallAddResult;
+import com.google.cloud.compute.v1.Firewall;
+import com.google.cloud.compute.v1.FirewallsClient;
+import com.google.cloud.compute.v1.Operation;
+import com.google.cloud.compute.v1.PatchFirewallRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.UnaryOperator;
+
+/**
+ * Every write to one firewall rule goes through here, on one thread, one of these per shard (see
+ * {@link FirewallShards}) so different rules are patched in parallel. Adds are not patched one by one: the first one
+ * opens a short window, everything that arrives within it is merged into a single {@link PatchFirewallRequest}, and
+ * every caller is completed from that one operation. Adds that arrive while a patch is running make up the next one.
+ * <p>
+ * Serializing our own writes means we can't lose each other's adds anymore. Someone else (the console, another
+ * instance) can still overwrite the rule between our read and our patch, and the compute api has no fingerprint on
+ * firewalls to reject that with, so the rule is read again after every patch and addresses that went missing are
+ * patched in again, up to {@code maxAttempts}. Each patch carries its own request id, the api drops duplicates if the
+ * client retries one underneath us.
+ */
+public class FirewallPatchCoordinator {
+    private static final Logger logger = LoggerFactory.getLogger(FirewallPatchCoordinator.class);
+
+    private final FirewallsClient firewallsClient;
+    private final FirewallPatchConfig config;
+    private final FirewallRangeCache rangeCache;
+    private final FirewallOperationTracker operationTracker;
+    private final String projectId;
+    private final String firewallName;
+
+    private final ScheduledExecutorService writer;
+
+    private final Queue<PendingAdd> adds = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+    public FirewallPatchCoordinator(FirewallsClient firewallsClient, FirewallPatchConfig config,
+                                    FirewallRangeCache rangeCache, FirewallOperationTracker operationTracker,
+                                    String projectId, String firewallName) {
+        this.firewallsClient = firewallsClient;
+        this.config = config;
+        this.rangeCache = rangeCache;
+        this.operationTracker = operationTracker;
+        this.projectId = projectId;
+        this.firewallName = firewallName;
+        this.writer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "firewall-writer-" + firewallName);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public String getFirewallName() {
+        return firewallName;
+    }
+
+    /**
+     * Adds {@code cidr} with whatever else is added within the batch window. Completes once the patch that carries it
+     * is done and the address is actually in the rule.
+     */
+    public CompletableFuture<FirewallAddResult> add(String cidr) {
+        PendingAdd pending = new PendingAdd(cidr, new CompletableFuture<>());
+        adds.add(pending);
+        if (flushScheduled.compareAndSet(false, true)) {
+            writer.schedule(this::flush, config.getBatchWindow().toMillis(), TimeUnit.MILLISECONDS);
+        }
+        return pending.result;
+    }
+
+    /**
+     * Replaces the source ranges with whatever {@code change} makes of the current ones, in line with the adds. The
+     * change may throw to leave the rule alone, the future fails with that. No patch if nothing changed.
+     */
+    public CompletableFuture<Void> replace(UnaryOperator<List<String>> change) {
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        writer.execute(() -> {
+            try {
+                Firewall firewall = firewallsClient.get(projectId, firewallName);
+                rangeCache.update(firewallName, firewall.getSourceRangesList());
+                List<String> next = change.apply(new ArrayList<>(firewall.getSourceRangesList()));
+                if (!next.equals(firewall.getSourceRangesList())) {
+                    patch(firewall, next);
+                }
+                result.complete(null);
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Completes once every add queued so far has been patched, or failed.
+     */
+    public CompletableFuture<Void> drain() {
+        CompletableFuture<Void> drained = new CompletableFuture<>();
+        writer.schedule(() -> {
+            flush();
+            drained.complete(null);
+        }, config.getBatchWindow().toMillis(), TimeUnit.MILLISECONDS);
+        return drained;
+    }
+
+    public void close() {
+        writer.shutdownNow();
+        PendingAdd pending;
+        while ((pending = adds.poll()) != null) {
+            pending.result.completeExceptionally(new InternalServerException("Shutting down", 503));
+        }
+    }
+
+    private void flush() {
+        // cleared before draining, an add that misses this batch schedules the next one
+        flushScheduled.set(false);
+
+        Map<String, List<CompletableFuture<FirewallAddResult>>> batch = new LinkedHashMap<>();
+        PendingAdd pending;
+        while ((pending = adds.poll()) != null) {
+            batch.computeIfAbsent(pending.cidr, cidr -> new ArrayList<>()).add(pending.result);
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try {
+            apply(batch);
+        } catch (Throwable e) {
+            logger.warn("firewall patch for {} addresses failed :: {}", batch.size(), e.getMessage());
+            batch.values().forEach(waiters -> waiters.forEach(waiter -> waiter.completeExceptionally(e)));
+        }
+    }
+
+    // completes and removes every address as soon as a read shows it in the rule, whatever is left is failed by flush
+    private void apply(Map<String, List<CompletableFuture<FirewallAddResult>>> batch) throws Exception {
+        Set<String> patched = new HashSet<>();
+        for (int attempt = 0; ; attempt++) {
+            Firewall firewall = firewallsClient.get(projectId, firewallName);
+            List<String> ranges = firewall.getSourceRangesList();
+            rangeCache.update(firewallName, ranges);
+
+            Iterator<Map.Entry<String, List<CompletableFuture<FirewallAddResult>>>> it = batch.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<String, List<CompletableFuture<FirewallAddResult>>> entry = it.next();
+                if (ranges.contains(entry.getKey())) {
+                    FirewallAddResult result = patched.contains(entry.getKey())
+                            ? FirewallAddResult.ADDED : FirewallAddResult.ALREADY_PRESENT;
+                    entry.getValue().forEach(waiter -> waiter.complete(result));
+                    it.remove();
+                }
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+            if (attempt == config.getMaxAttempts()) {
+                throw new InternalServerException("Firewall rule kept changing while adding " + batch.keySet(), 500);
+            }
+            if (attempt > 0) {
+                logger.info("{} addresses went missing from the firewall after patching, patching again", batch.size());
+            }
+
+            List<String> next = new ArrayList<>(ranges);
+            next.addAll(batch.keySet());
+
+            patch(firewall, next);
+            patched.addAll(batch.keySet());
+        }
+    }
+
+    private void patch(Firewall firewall, List<String> ranges) throws Exception {
+        Firewall newFirewallState = firewall.toBuilder()
+                .clearSourceRanges()
+                .addAllSourceRanges(ranges)
+                .build();
+
+        PatchFirewallRequest patchRequest = PatchFirewallRequest.newBuilder()
+                .setFirewall(firewallName)
+                .setProject(projectId)
+                .setFirewallResource(newFirewallState)
+                .setRequestId(UUID.randomUUID().toString())
+                .build();
+
+        // started, then polled on the tracker. the writer still waits, the next patch has to see this one
+        Operation operation = operationTracker.track(firewallsClient.patchCallable().call(patchRequest)).get();
+        if (operation.hasError()) {
+            throw new InternalServerException("Failed to patch firewall: " + operation.getError(), 500);
+        }
+        rangeCache.update(firewallName, ranges);
+    }
+
+    private record PendingAdd(String cidr, CompletableFuture<FirewallAddResult> result) {
+    }
+}
@@ -0,0 +1,199 @@
+package com.arhum.validator.config.firewall;
+
+import com.arhum.validator.util.Ipv4RangeSet;
+import com.google.cloud.compute.v1.Firewall;
+import com.google.cloud.compute.v1.FirewallsClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The source ranges of every firewall shard (see {@link FirewallShards}) as one {@link Ipv4RangeSet} per rule, so
+ * check-ip is answered without going to gcp, whichever rule the address is in. Refreshed on a schedule by listing
+ * the project's rules, which also picks up shards made or removed elsewhere and changes made in the console, and
+ * replaced right away by {@link FirewallPatchCoordinator} whenever it reads or patches a rule.
+ * <p>
+ * Every view has a version. A scheduled refresh only goes in for rules nothing replaced while it was listing,
+ * otherwise a read that started before one of our patches could put the old ranges back.
+ */
+@Component
+public class FirewallRangeCache {
+    private static final Logger logger = LoggerFactory.getLogger(FirewallRangeCache.class);
+
+    private final FirewallsClient firewallsClient;
+    private final String projectId;
+    private final String firewallName;
+
+    private final Map<String, View> views = new ConcurrentHashMap<>();
+    private volatile boolean loaded;
+
+    // the first load while nothing is loaded yet, everyone who needs the views joins it instead of listing again
+    private final AtomicReference<CompletableFuture<Void>> firstLoad = new AtomicReference<>();
+
+    public FirewallRangeCache(FirewallsClient firewallsClient,
+                              @Value("${google.project-id}") String projectId,
+                              @Value("${google.compute.firewall-name}") String firewallName) {
+        this.firewallsClient = firewallsClient;
+        this.projectId = projectId;
+        this.firewallName = firewallName;
+    }
+
+    /**
+     * Whether every address of {@code cidr} is allowed by one of the rules. Only goes to gcp until the rules were
+     * listed once, and calls made meanwhile share a single listing. If that fails they all get the error and the next
+     * call lists again.
+     */
+    public boolean contains(String cidr) {
+        for (View view : views()) {
+            if (view.ranges.contains(cidr)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Whether {@code cidr} is one of the source ranges as it is, not just covered by one.
+     */
+    public boolean isListed(String cidr) {
+        return listedIn(cidr) != null;
+    }
+
+    /**
+     * The rule that has {@code cidr} as one of its source ranges, null if none does.
+     */
+    public String listedIn(String cidr) {
+        for (View view : views()) {
+            if (view.sourceRanges.contains(cidr)) {
+                return view.firewallName;
+            }
+        }
+        return null;
+    }
+
+    public Set<String> sourceRanges(String firewallName) {
+        views();
+        View view = views.get(firewallName);
+        return view == null ? Set.of() : view.sourceRanges;
+    }
+
+    public Set<String> shardNames() {
+        views();
+        Set<String> names = new TreeSet<>(views.keySet());
+        names.add(firewallName);
+        return names;
+    }
+
+    // source ranges over all shards
+    public int totalListed() {
+        int total = 0;
+        for (View view : views()) {
+            total += view.sourceRanges.size();
+        }
+        return total;
+    }
+
+    /**
+     * What {@code firewallName} holds now, as just read or patched by us.
+     */
+    public void update(String firewallName, List<String> sourceRanges) {
+        views.compute(firewallName, (name, current) -> View.of(name, current == null ? 1 : current.version + 1, sourceRanges));
+    }
+
+    /**
+     * {@code firewallName} was deleted by us.
+     */
+    public void forget(String firewallName) {
+        views.remove(firewallName);
+    }
+
+    @Scheduled(fixedDelayString = "${google.compute.firewall-cache.refresh-interval-ms:60000}",
+            initialDelayString = "${google.compute.firewall-cache.refresh-interval-ms:60000}")
+    public void refresh() {
+        try {
+            load();
+        } catch (RuntimeException e) {
+            // the old views are still better than nothing, the next refresh tries again
+            logger.warn("could not refresh firewall ranges :: {}", e.getMessage());
+        }
+    }
+
+    private Iterable<View> views() {
+        if (!loaded) {
+            loadOnce();
+        }
+        return views.values();
+    }
+
+    private void loadOnce() {
+        CompletableFuture<Void> mine = new CompletableFuture<>();
+        CompletableFuture<Void> running = firstLoad.compareAndExchange(null, mine);
+        if (running != null) {
+            try {
+                running.join();
+                return;
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+
+        try {
+            if (!loaded) { // a load may have finished just before we got in
+                load();
+            }
+            mine.complete(null);
+        } catch (Throwable e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            firstLoad.set(null);
+        }
+    }
+
+    private void load() {
+        Map<String, View> seen = new HashMap<>(views);
+
+        Map<String, List<String>> listed = new HashMap<>();
+        for (Firewall firewall : firewallsClient.list(projectId).iterateAll()) {
+            if (FirewallShards.isShard(firewallName, firewall.getName())) {
+                listed.put(firewall.getName(), firewall.getSourceRangesList());
+            }
+        }
+
+        for (Map.Entry<String, List<String>> rule : listed.entrySet()) {
+            View before = seen.get(rule.getKey());
+            View next = View.of(rule.getKey(), before == null ? 1 : before.version + 1, rule.getValue());
+            boolean installed = before == null ? views.putIfAbsent(rule.getKey(), next) == null : views.replace(rule.getKey(), before, next);
+            if (installed && next.ranges.skipped() > 0) {
+                logger.debug("{} source ranges of {} are not IPv4 CIDRs, check-ip ignores them", next.ranges.skipped(), rule.getKey());
+            }
+            // not installed: replaced while we were listing, that one is at least as new
+        }
+        for (Map.Entry<String, View> before : seen.entrySet()) {
+            if (!listed.containsKey(before.getKey())) {
+                views.remove(before.getKey(), before.getValue()); // deleted elsewhere
+            }
+        }
+        loaded = true;
+    }
+
+    public record View(String firewallName, long version, Set<String> sourceRanges, Ipv4RangeSet ranges, long fetchedAt) {
+
+        private static View of(String firewallName, long version, List<String> sourceRanges) {
+            return new View(firewallName, version, Set.copyOf(sourceRanges), Ipv4RangeSet.of(sourceRanges),
+                    System.currentTimeMillis());
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.arhum.validator.config.firewall;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "google.compute.firewall-shards")
+public class FirewallShardConfig {
+
+    // 1 keeps everything in google.compute.firewall-name. more are named <firewall-name>-1, -2, ...
+    private int maxShards = 1;
+
+    // source ranges per rule before another shard is made
+    private int targetPerShard = 200;
+
+    // a shard is only collapsed once the rest would be at most this full, so one leaving address doesn't undo an add
+    private double collapseBelow = 0.75;
+
+    // points per shard on the hash ring, more spreads the addresses more evenly
+    private int virtualNodes = 64;
+}
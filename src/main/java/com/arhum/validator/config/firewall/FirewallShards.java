@@ -0,0 +1,392 @@
+package com.arhum.validator.config.firewall;
+
+import com.arhum.validator.exception.InternalServerException;
+import com.arhum.validator.exception.ServiceUnavailableException;
+import com.arhum.validator.model.enums.FirewallAddResult;
+import com.arhum.validator.util.ConsistentHashRing;
+import com.google.cloud.compute.v1.DeleteFirewallRequest;
+import com.google.cloud.compute.v1.Firewall;
+import com.google.cloud.compute.v1.FirewallsClient;
+import com.google.cloud.compute.v1.InsertFirewallRequest;
+import com.google.cloud.compute.v1.Operation;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+/**
+ * The allowed addresses spread over a group of firewall rules, google.compute.firewall-name and
+ * {@code <firewall-name>-1}, {@code -2} and so on, since one rule only holds so many source ranges. Each address is
+ * placed on a shard by a {@link ConsistentHashRing}, each shard has its own {@link FirewallPatchCoordinator}, so an
+ * add only patches its own rule and adds to different rules go out in parallel.
+ * <p>
+ * The number of shards follows the number of source ranges: past {@code targetPerShard} per rule a shard is made by
+ * copying the first rule, and the addresses the ring now puts on it are moved over. Once the others have room again
+ * the last one is collapsed into them and deleted. Either way an address is added to its new rule before it is
+ * taken out of the old one, and only one of these runs at a time. A shard being collapsed is off the ring first, adds
+ * of addresses on it go where they are being moved to and removes wait until they got there.
+ * <p>
+ * Shards are found by listing the project's rules (see {@link FirewallRangeCache}), this instance assumes it's the
+ * only one changing them.
+ */
+@Component
+public class FirewallShards {
+    private static final Logger logger = LoggerFactory.getLogger(FirewallShards.class);
+
+    // a rule can't be left with no source ranges at all, see purge
+    static final String PLACEHOLDER = "1.1.1.1/32";
+
+    private final FirewallsClient firewallsClient;
+    private final FirewallPatchConfig patchConfig;
+    private final FirewallShardConfig config;
+    private final FirewallRangeCache rangeCache;
+    private final FirewallOperationTracker operationTracker;
+    private final String projectId;
+    private final String firewallName;
+
+    private final Map<String, FirewallPatchCoordinator> writers = new ConcurrentHashMap<>();
+    private volatile ConsistentHashRing ring;
+
+    // picking a shard and queueing on its writer happen under this, as do taking a shard off the ring and deleting
+    // it. so whatever was meant for a shard is queued before it is drained, and nothing is queued on it after
+    private final Object routing = new Object();
+    // off the ring but not deleted yet, completed once it's gone or back on the ring. guarded by routing
+    private final Map<String, CompletableFuture<Void>> retiring = new HashMap<>();
+    // deleted by us, their writers are closed for good. guarded by routing
+    private final Set<String> deleted = new HashSet<>();
+
+    // shards are made, collapsed and reset one at a time, here
+    private final ExecutorService layout = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "firewall-shards");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean rebalanceQueued = new AtomicBoolean();
+
+    public FirewallShards(FirewallsClient firewallsClient, FirewallPatchConfig patchConfig, FirewallShardConfig config,
+                          FirewallRangeCache rangeCache, FirewallOperationTracker operationTracker,
+                          @Value("${google.project-id}") String projectId,
+                          @Value("${google.compute.firewall-name}") String firewallName) {
+        this.firewallsClient = firewallsClient;
+        this.patchConfig = patchConfig;
+        this.config = config;
+        this.rangeCache = rangeCache;
+        this.operationTracker = operationTracker;
+        this.projectId = projectId;
+        this.firewallName = firewallName;
+    }
+
+    static boolean isShard(String firewallName, String name) {
+        return name.equals(firewallName) || shardIndex(firewallName, name) > 0;
+    }
+
+    // 0 for the first rule, n for <firewall-name>-n, -1 for anything else
+    static int shardIndex(String firewallName, String name) {
+        if (name.equals(firewallName)) {
+            return 0;
+        }
+        if (!name.startsWith(firewallName + "-") || name.length() == firewallName.length() + 1) {
+            return -1;
+        }
+        String suffix = name.substring(firewallName.length() + 1);
+        if (suffix.length() > 4 || !suffix.chars().allMatch(Character::isDigit) || suffix.startsWith("0")) {
+            return -1;
+        }
+        return Integer.parseInt(suffix);
+    }
+
+    /**
+     * Adds {@code cidr} to its shard, or confirms it on the one it is already in.
+     */
+    public CompletableFuture<FirewallAddResult> add(String cidr) {
+        synchronized (routing) {
+            // on a shard that is being collapsed it is on its way to where the ring puts it now
+            String listed = rangeCache.listedIn(cidr);
+            boolean stays = listed != null && !retiring.containsKey(listed) && !deleted.contains(listed);
+            return writer(stays ? listed : ring().get(cidr)).add(cidr);
+        }
+    }
+
+    /**
+     * Takes {@code cidrs} out of whichever shards have them, one patch per shard and all of them at once. Each is
+     * checked against {@code stillGoing} on its shard's writer, right before the patch.
+     */
+    public CompletableFuture<Void> remove(Collection<String> cidrs, Predicate<String> stillGoing) {
+        List<CompletableFuture<Void>> patches = new ArrayList<>();
+        synchronized (routing) {
+            Map<String, List<String>> byShard = new HashMap<>();
+            Map<CompletableFuture<Void>, List<String>> moving = new HashMap<>();
+            for (String cidr : cidrs) {
+                String listed = rangeCache.listedIn(cidr);
+                if (listed == null || deleted.contains(listed)) {
+                    continue;
+                }
+                CompletableFuture<Void> retired = retiring.get(listed);
+                if (retired != null) {
+                    moving.computeIfAbsent(retired, r -> new ArrayList<>()).add(cidr);
+                } else {
+                    byShard.computeIfAbsent(listed, name -> new ArrayList<>()).add(cidr);
+                }
+            }
+
+            for (Map.Entry<String, List<String>> shard : byShard.entrySet()) {
+                patches.add(writer(shard.getKey()).replace(ranges ->
+                        without(ranges, shard.getValue().stream().filter(stillGoing).toList())));
+            }
+            // taken out of wherever the collapse put them
+            moving.forEach((retired, later) -> patches.add(retired.thenCompose(done -> remove(later, stillGoing))));
+        }
+        return CompletableFuture.allOf(patches.toArray(CompletableFuture[]::new));
+    }
+
+    /**
+     * Replaces the first rule with whatever {@code change} makes of it and deletes the other shards along with what
+     * they held (purge, make-public).
+     */
+    public CompletableFuture<Void> replaceAll(UnaryOperator<List<String>> change) {
+        return CompletableFuture.runAsync(() -> {
+            try {
+                writer(firewallName).replace(change).get();
+                for (String shard : ring().members()) {
+                    if (!shard.equals(firewallName)) {
+                        retire(shard, () -> {});
+                    }
+                }
+            } catch (Exception e) {
+                throw unwrap(e);
+            }
+        }, layout);
+    }
+
+    public int shardCount() {
+        return ring().members().size();
+    }
+
+    /**
+     * Makes or collapses a shard if the population calls for it, soon and on the layout thread.
+     */
+    public void requestRebalance() {
+        if ((config.getMaxShards() > 1 || shardCount() > 1) && rebalanceQueued.compareAndSet(false, true)) {
+            layout.execute(() -> {
+                rebalanceQueued.set(false);
+                rebalance();
+            });
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${google.compute.firewall-shards.rebalance-interval-ms:60000}",
+            initialDelayString = "${google.compute.firewall-shards.rebalance-interval-ms:60000}")
+    public void scheduledRebalance() {
+        requestRebalance();
+    }
+
+    @PreDestroy
+    public void close() {
+        layout.shutdownNow();
+        writers.values().forEach(FirewallPatchCoordinator::close);
+    }
+
+    // one step per call, the next one comes with the next add or the schedule
+    private void rebalance() {
+        try {
+            int shards = shardCount();
+            int population = rangeCache.totalListed();
+            if (population > shards * config.getTargetPerShard() && shards < config.getMaxShards()) {
+                grow();
+            } else if (shards > config.getMaxShards()
+                    || shards > 1 && population <= (shards - 1) * config.getTargetPerShard() * config.getCollapseBelow()) {
+                collapse();
+            }
+        } catch (Exception e) {
+            logger.warn("could not rebalance firewall shards :: {}", unwrap(e).getMessage());
+        }
+    }
+
+    private void grow() throws Exception {
+        int next = 1;
+        for (String shard : ring().members()) {
+            next = Math.max(next, shardIndex(firewallName, shard) + 1);
+        }
+        String name = firewallName + "-" + next;
+        ConsistentHashRing grown = ring().with(name);
+
+        // only single addresses move, broader ranges were put there by hand and stay where they are
+        Map<String, List<String>> moving = new HashMap<>();
+        List<String> moved = new ArrayList<>();
+        for (String shard : ring().members()) {
+            for (String cidr : rangeCache.sourceRanges(shard)) {
+                if (cidr.endsWith("/32") && !cidr.equals(PLACEHOLDER) && grown.get(cidr).equals(name)) {
+                    moving.computeIfAbsent(shard, s -> new ArrayList<>()).add(cidr);
+                    moved.add(cidr);
+                }
+            }
+        }
+
+        Firewall template = firewallsClient.get(projectId, firewallName);
+        Firewall shard = template.toBuilder()
+                .clearId()
+                .clearSelfLink()
+                .clearCreationTimestamp()
+                .setName(name)
+                .clearSourceRanges()
+                .addAllSourceRanges(moved.isEmpty() ? List.of(PLACEHOLDER) : moved)
+                .build();
+        await(firewallsClient.insertCallable().call(InsertFirewallRequest.newBuilder()
+                .setProject(projectId)
+                .setFirewallResource(shard)
+                .setRequestId(UUID.randomUUID().toString())
+                .build()), "create " + name);
+        rangeCache.update(name, shard.getSourceRangesList());
+
+        // new adds go to the new rule from here on, then the moved ones leave their old rules
+        synchronized (routing) {
+            deleted.remove(name); // made again after an earlier collapse
+            ring = grown;
+        }
+        CompletableFuture.allOf(moving.entrySet().stream()
+                .map(from -> writer(from.getKey()).replace(ranges -> without(ranges, from.getValue())))
+                .toArray(CompletableFuture[]::new)).get();
+        logger.info("made firewall shard {} with {} addresses, {} shards now", name, moved.size(), grown.members().size());
+    }
+
+    private void collapse() throws Exception {
+        String name = null;
+        for (String shard : ring().members()) {
+            if (name == null || shardIndex(firewallName, shard) > shardIndex(firewallName, name)) {
+                name = shard;
+            }
+        }
+        String collapsing = name;
+        int[] moved = new int[1];
+        retire(collapsing, () -> {
+            ConsistentHashRing collapsed = ring();
+            Map<String, List<String>> moving = new HashMap<>();
+            for (String cidr : firewallsClient.get(projectId, collapsing).getSourceRangesList()) {
+                if (!cidr.equals(PLACEHOLDER)) {
+                    moving.computeIfAbsent(collapsed.get(cidr), s -> new ArrayList<>()).add(cidr);
+                    moved[0]++;
+                }
+            }
+            CompletableFuture.allOf(moving.entrySet().stream()
+                    .map(to -> writer(to.getKey()).replace(ranges -> with(ranges, to.getValue())))
+                    .toArray(CompletableFuture[]::new)).get();
+        });
+        logger.info("collapsed firewall shard {}, moved {} addresses, {} shards now", name, moved[0], shardCount());
+    }
+
+    /**
+     * Takes {@code name} off the ring, lets through what was already queued for it, runs {@code beforeDelete} and
+     * deletes the rule. If any of that fails the shard goes back on the ring, it still exists.
+     */
+    private void retire(String name, Step beforeDelete) throws Exception {
+        CompletableFuture<Void> retired = new CompletableFuture<>();
+        synchronized (routing) {
+            ring = ring().without(name);
+            retiring.put(name, retired);
+        }
+        try {
+            writer(name).drain().get();
+            beforeDelete.run();
+            await(firewallsClient.deleteCallable().call(DeleteFirewallRequest.newBuilder()
+                    .setProject(projectId)
+                    .setFirewall(name)
+                    .setRequestId(UUID.randomUUID().toString())
+                    .build()), "delete " + name);
+
+            synchronized (routing) {
+                deleted.add(name);
+                rangeCache.forget(name);
+                FirewallPatchCoordinator writer = writers.remove(name);
+                if (writer != null) {
+                    writer.close();
+                }
+            }
+        } catch (Exception e) {
+            synchronized (routing) {
+                ring = ring().with(name);
+            }
+            throw e;
+        } finally {
+            synchronized (routing) {
+                retiring.remove(name);
+            }
+            retired.complete(null);
+        }
+    }
+
+    private void await(Operation started, String what) throws Exception {
+        Operation operation = operationTracker.track(started).get();
+        if (operation.hasError()) {
+            throw new InternalServerException("Failed to " + what + ": " + operation.getError(), 500);
+        }
+    }
+
+    private ConsistentHashRing ring() {
+        ConsistentHashRing current = ring;
+        if (current == null) {
+            synchronized (this) {
+                if (ring == null) {
+                    ring = new ConsistentHashRing(rangeCache.shardNames(), config.getVirtualNodes());
+                }
+                current = ring;
+            }
+        }
+        return current;
+    }
+
+    private FirewallPatchCoordinator writer(String shard) {
+        if (deleted.contains(shard)) {
+            throw new ServiceUnavailableException("The firewall rule " + shard + " was just deleted, try again", 5031);
+        }
+        return writers.computeIfAbsent(shard, name ->
+                new FirewallPatchCoordinator(firewallsClient, patchConfig, rangeCache, operationTracker, projectId, name));
+    }
+
+    private interface Step {
+        void run() throws Exception;
+    }
+
+    private static List<String> without(List<String> ranges, Collection<String> removed) {
+        List<String> next = new ArrayList<>(ranges);
+        next.removeAll(removed);
+        if (next.isEmpty()) {
+            next.add(PLACEHOLDER);
+        }
+        return next;
+    }
+
+    private static List<String> with(List<String> ranges, Collection<String> added) {
+        List<String> next = new ArrayList<>(ranges);
+        next.remove(PLACEHOLDER);
+        for (String cidr : added) {
+            if (!next.contains(cidr)) {
+                next.add(cidr);
+            }
+        }
+        return next;
+    }
+
+    private static RuntimeException unwrap(Exception e) {
+        Throwable cause = e instanceof ExecutionException && e.getCause() != null ? e.getCause() : e;
+        return cause instanceof RuntimeException runtime ? runtime : new InternalServerException(cause.getMessage(), 500);
+    }
+}
@@ -0,0 +1,102 @@
+package com.arhum.validator.config.query;
+
+import com.arhum.validator.model.enums.PlayerEventType;
+import com.arhum.validator.model.response.MOTDResponse;
+import com.arhum.validator.model.response.PlayerEventResponse;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Turns consecutive status snapshots of a server into join/leave/count events and hands them to every subscriber
+ * of that server. Fed by {@link ServerStatusPoller} after each poll, so any number of viewers share the one poll
+ * the poller does anyway.
+ * <p>
+ * Per server there is one replaying sink holding the latest update. A new subscriber gets that update's snapshot
+ * first, as its baseline, then only the events of every update after it, with nothing lost in between.
+ */
+@Component
+public class PlayerEventHub {
+
+    private final Map<String, Sinks.Many<Update>> channels = new ConcurrentHashMap<>();
+
+    /**
+     * The current snapshot of {@code address} (as soon as there is one), then its player events as they happen.
+     * Never completes by itself.
+     */
+    public Flux<Object> events(String address) {
+        return channelFor(address).asFlux()
+                .index()
+                .flatMapIterable(update -> update.getT1() == 0
+                        ? List.of(update.getT2().snapshot)
+                        : update.getT2().events);
+    }
+
+    /**
+     * Called by the poller whenever a snapshot replaces the previous one (null for the first). Updates for one
+     * address must not overlap, the poller's single flight per server takes care of that.
+     */
+    public void publish(String address, MOTDResponse previous, MOTDResponse current) {
+        channelFor(address).tryEmitNext(new Update(current, diff(previous, current)));
+    }
+
+    private Sinks.Many<Update> channelFor(String address) {
+        return channels.computeIfAbsent(address, key -> Sinks.many().replay().latest());
+    }
+
+    static List<PlayerEventResponse> diff(MOTDResponse previous, MOTDResponse current) {
+        if (previous == null) {
+            return List.of();
+        }
+
+        List<PlayerEventResponse> events = new ArrayList<>();
+        long at = current.getFetchedAt();
+        int before = previous.getNumPlayers();
+        int now = current.getNumPlayers();
+
+        // a sample or a cut off list says nothing about who left, only complete lists are compared
+        if (!previous.isTruncated() && !current.isTruncated() && !sameList(previous.getPlayers(), current.getPlayers())) {
+            Set<String> old = new HashSet<>(previous.getPlayers());
+            Set<String> fresh = new HashSet<>(current.getPlayers());
+            for (String player : previous.getPlayers()) {
+                if (!fresh.contains(player)) {
+                    events.add(new PlayerEventResponse(PlayerEventType.LEAVE, player, now, before, at));
+                }
+            }
+            for (String player : current.getPlayers()) {
+                if (!old.contains(player)) {
+                    events.add(new PlayerEventResponse(PlayerEventType.JOIN, player, now, before, at));
+                }
+            }
+        }
+        if (now != before) {
+            events.add(new PlayerEventResponse(PlayerEventType.COUNT, null, now, before, at));
+        }
+        return events;
+    }
+
+    // the parser hands back the previous String instances for names that stayed put, so this is mostly ==
+    private static boolean sameList(List<String> a, List<String> b) {
+        if (a.size() != b.size()) {
+            return false;
+        }
+        for (int i = 0; i < a.size(); i++) {
+            String x = a.get(i);
+            String y = b.get(i);
+            if (x != y && !x.equals(y)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private record Update(MOTDResponse snapshot, List<PlayerEventResponse> events) {
+    }
+}
@@ -0,0 +1,488 @@
+package com.arhum.validator.config.query;
+
+import com.arhum.validator.util.SocketUtils;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.SocketTimeoutException;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * GameSpy4 full stat queries for any number of servers over one non-blocking {@link DatagramChannel}. Callers send
+ * straight from their own thread, a single selector thread reads every reply and completes whichever query it
+ * belongs to, matched on the source address and the session id. Each query times out on its own, a server that
+ * doesn't answer costs a pending future and nothing else.
+ * <p>
+ * The challenge token is cached per server, so a status query is one round trip instead of handshake + query. The
+ * server hands out tokens per source address <i>and port</i>, which is one more reason for the single long lived
+ * channel. Tokens about to run out are replaced in the background by {@link #refreshTokens()}. A token the server
+ * no longer accepts is simply ignored by it, so a query with a cached token only waits a few of the server's usual
+ * round trips (at least {@code staleTokenTimeout}) before it handshakes and tries once more.
+ * <p>
+ * Replies are read into one buffer that can hold any UDP datagram, so the socket never cuts one short, and only
+ * the bytes actually received are handed on. A full stat reply the server split over several datagrams (the
+ * splitnum header) is put back together before the query completes. If parts are still missing when the query times
+ * out, whatever arrived in order is returned, marked as unfinished in its splitnum byte so the parser can tell.
+ */
+@Component
+public class QueryClient {
+    private static final Logger logger = LoggerFactory.getLogger(QueryClient.class);
+
+    private static final int TYPE_STAT = 0;
+    private static final int TYPE_HANDSHAKE = 9;
+
+    // largest payload a udp datagram can carry is 65507 (ipv4) / 65527 (ipv6), this never truncates
+    private static final int MAX_DATAGRAM = 65535;
+
+    // type + session id + "splitnum" 0x00 + packet byte + one more byte. the packet byte is the index, 0x80 on the last
+    private static final int SPLIT_HEADER = 16;
+    private static final int SPLIT_PACKET = 14;
+    private static final byte[] SPLITNUM = "splitnum\0".getBytes(StandardCharsets.ISO_8859_1);
+    private static final int LAST_PACKET = 0x80;
+
+    private final QueryConfig config;
+    private final DatagramChannel channel;
+    private final Selector selector;
+
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+    private final Map<PendingKey, Pending> pending = new ConcurrentHashMap<>();
+
+    private final AtomicInteger sessionIds = new AtomicInteger();
+
+    // counters for /server-info/query-stats
+    private final LongAdder replies = new LongAdder();
+    private final LongAdder multiPacketReplies = new LongAdder();
+    private final LongAdder incompleteReplies = new LongAdder();
+    private final AtomicLong largestReply = new AtomicLong();
+
+    private volatile boolean closed;
+
+    public QueryClient(QueryConfig config) throws IOException {
+        this.config = config;
+        this.channel = DatagramChannel.open();
+        this.channel.configureBlocking(false);
+        this.channel.setOption(StandardSocketOptions.SO_RCVBUF, 1 << 20); // room for a burst of replies from a big fleet
+        this.channel.bind(null);
+        this.selector = Selector.open();
+        this.channel.register(selector, SelectionKey.OP_READ);
+
+        Thread reader = new Thread(this::readLoop, "query-selector");
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    /**
+     * Runs a full stat query and completes with the raw reply (exactly as long as the datagram, header included).
+     * Fails with an IOException on network errors or if the server doesn't answer in time.
+     */
+    public CompletableFuture<byte[]> fullStatAsync(String host, int port) {
+        Endpoint endpoint;
+        try {
+            endpoint = endpointFor(host, port);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        endpoint.lastUsedAt = System.currentTimeMillis();
+
+        Integer token = endpoint.usableToken(config);
+        if (token == null) {
+            return endpoint.handshake().thenCompose(fresh -> stat(endpoint, fresh, config.getTimeout().toMillis()));
+        }
+
+        return stat(endpoint, token, endpoint.staleTokenTimeout(config))
+                .exceptionallyCompose(e -> {
+                    if (!(unwrap(e) instanceof SocketTimeoutException)) {
+                        return CompletableFuture.failedFuture(unwrap(e));
+                    }
+                    // stale token or a lost packet, a new handshake covers both
+                    logger.debug("no full stat reply from {} with cached token, handshaking again", endpoint.target);
+                    endpoint.invalidate(token);
+                    return endpoint.handshake().thenCompose(fresh -> stat(endpoint, fresh, config.getTimeout().toMillis()));
+                });
+    }
+
+    /**
+     * Blocking version of {@link #fullStatAsync}.
+     */
+    public byte[] fullStat(String host, int port) throws IOException {
+        try {
+            return fullStatAsync(host, port).get();
+        } catch (ExecutionException e) {
+            throw asIOException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for a query reply", e);
+        }
+    }
+
+    /**
+     * Replaces tokens that are about to expire, and forgets servers that haven't been asked about in a while.
+     */
+    @Scheduled(fixedDelayString = "${minecraft-server.query.refresh-interval-ms:1000}")
+    public void refreshTokens() {
+        long now = System.currentTimeMillis();
+        long refreshAt = config.getTokenLifetime().minus(config.getRefreshBefore()).toMillis();
+
+        for (Map.Entry<String, Endpoint> entry : endpoints.entrySet()) {
+            Endpoint endpoint = entry.getValue();
+            if (now - endpoint.lastUsedAt > config.getIdleAfter().toMillis()) {
+                endpoints.remove(entry.getKey(), endpoint);
+                logger.debug("forgot query token for {}", endpoint.target);
+            } else if (endpoint.token != null && now - endpoint.tokenIssuedAt >= refreshAt) {
+                endpoint.handshake().whenComplete((token, e) -> {
+                    if (e != null) {
+                        logger.debug("could not refresh query token for {} :: {}", endpoint.target, unwrap(e).getMessage());
+                    }
+                });
+            }
+        }
+    }
+
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    public long getReplies() {
+        return replies.sum();
+    }
+
+    public long getMultiPacketReplies() {
+        return multiPacketReplies.sum();
+    }
+
+    // split replies that timed out with parts missing and were handed on as far as they got
+    public long getIncompleteReplies() {
+        return incompleteReplies.sum();
+    }
+
+    public long getLargestReply() {
+        return largestReply.get();
+    }
+
+    @PreDestroy
+    public void close() {
+        closed = true;
+        try {
+            selector.close(); // wakes the reader up, it exits on the closed flag
+            channel.close();
+        } catch (IOException ignored) {
+        }
+        IOException cause = new IOException("Query client closed");
+        for (Pending query : pending.values()) {
+            query.future.completeExceptionally(cause);
+        }
+    }
+
+    private CompletableFuture<byte[]> stat(Endpoint endpoint, int token, long timeoutMillis) {
+        int sessionId = nextSessionId();
+        long sentAt = System.nanoTime();
+        return send(endpoint.target, TYPE_STAT, sessionId, SocketUtils.createFullQueryPacket(sessionId, token), timeoutMillis)
+                .thenApply(reply -> {
+                    endpoint.recordRoundTrip(System.nanoTime() - sentAt);
+                    return reply;
+                });
+    }
+
+    /**
+     * Registers the query before it goes out, so the reply can't beat us to the map, then sends it. The future
+     * fails with a SocketTimeoutException if nothing came back in time, and is unregistered however it ends.
+     */
+    private CompletableFuture<byte[]> send(InetSocketAddress target, int type, int sessionId, byte[] packet, long timeoutMillis) {
+        PendingKey key = new PendingKey(target, sessionId);
+        Pending query = new Pending(type);
+        pending.put(key, query);
+
+        CompletableFuture<byte[]> future = query.future
+                .orTimeout(timeoutMillis, TimeUnit.MILLISECONDS)
+                .exceptionallyCompose(e -> {
+                    if (!(e instanceof TimeoutException)) {
+                        return CompletableFuture.failedFuture(e);
+                    }
+                    byte[] partial = query.partial();
+                    if (partial != null) {
+                        // better a player list that stops early than none, the parser marks it truncated
+                        incompleteReplies.increment();
+                        logger.debug("query reply from {} is missing parts, using the first {} bytes", target, partial.length);
+                        return CompletableFuture.completedFuture(partial);
+                    }
+                    return CompletableFuture.failedFuture(new SocketTimeoutException("No query reply from " + target));
+                })
+                .whenComplete((reply, e) -> pending.remove(key, query));
+
+        try {
+            if (channel.send(ByteBuffer.wrap(packet), target) == 0) {
+                // the socket's send buffer is full, nothing to gain from waiting for room
+                throw new IOException("Query send buffer is full");
+            }
+        } catch (IOException e) {
+            query.future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    private void readLoop() {
+        // direct, a heap buffer would be copied through a temporary direct one on every receive
+        ByteBuffer buffer = ByteBuffer.allocateDirect(MAX_DATAGRAM);
+        while (!closed) {
+            try {
+                selector.select();
+                selector.selectedKeys().clear();
+
+                SocketAddress from;
+                while ((from = channel.receive(buffer.clear())) != null) {
+                    onReply(from, buffer.flip());
+                }
+            } catch (IOException e) {
+                if (!closed) {
+                    logger.warn("query channel read failed :: {}", e.getMessage());
+                }
+            } catch (RuntimeException e) {
+                if (!closed) {
+                    logger.warn("query reply handling failed", e); // never let this thread die
+                }
+            }
+        }
+    }
+
+    private void onReply(SocketAddress from, ByteBuffer reply) {
+        if (reply.remaining() < 5) {
+            return;
+        }
+        int type = reply.get(0);
+        int sessionId = reply.getInt(1);
+
+        Pending query = pending.get(new PendingKey(from, sessionId));
+        if (query == null || query.type != type) {
+            // a late reply to a query that already gave up, or not meant for us at all
+            logger.debug("discarding query reply from {} with session {}", from, sessionId);
+            return;
+        }
+
+        if (type == TYPE_STAT && isSplit(reply)) {
+            byte[] data = query.addPart(reply);
+            if (data != null) {
+                multiPacketReplies.increment();
+                completed(query, data);
+            }
+            return;
+        }
+
+        // only what was received, the rest of the buffer is whatever the previous datagram left there
+        byte[] data = new byte[reply.remaining()];
+        reply.get(data);
+        completed(query, data);
+    }
+
+    private void completed(Pending query, byte[] data) {
+        replies.increment();
+        largestReply.accumulateAndGet(data.length, Math::max);
+        query.future.complete(data);
+    }
+
+    // a stat reply that is one part of several. vanilla always sends everything in one, index 0 and the last flag set
+    private static boolean isSplit(ByteBuffer reply) {
+        if (reply.remaining() < SPLIT_HEADER) {
+            return false;
+        }
+        for (int i = 0; i < SPLITNUM.length; i++) {
+            if (reply.get(5 + i) != SPLITNUM[i]) {
+                return false;
+            }
+        }
+        return (reply.get(SPLIT_PACKET) & 0xFF) != LAST_PACKET;
+    }
+
+    private Endpoint endpointFor(String host, int port) throws IOException {
+        String key = host + ":" + port;
+        Endpoint endpoint = endpoints.get(key);
+        if (endpoint != null) {
+            return endpoint;
+        }
+
+        InetSocketAddress target = new InetSocketAddress(host, port);
+        if (target.isUnresolved()) {
+            throw new IOException("Unknown host " + host);
+        }
+        return endpoints.computeIfAbsent(key, k -> new Endpoint(target));
+    }
+
+    /**
+     * The server masks session ids with 0x0F0F0F0F before echoing them, so only the low nibble of each byte survives.
+     * The counter is spread over those nibbles, 65536 distinct ids before it wraps, far more than can be in flight.
+     */
+    private int nextSessionId() {
+        int n = sessionIds.incrementAndGet();
+        return (n & 0xF) | (n & 0xF0) << 4 | (n & 0xF00) << 8 | (n & 0xF000) << 12;
+    }
+
+    private static Throwable unwrap(Throwable e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+    }
+
+    private static IOException asIOException(Throwable e) {
+        Throwable cause = unwrap(e);
+        return cause instanceof IOException io ? io : new IOException(cause.getMessage(), cause);
+    }
+
+    private record PendingKey(SocketAddress from, int sessionId) {
+    }
+
+    private static final class Pending {
+        private final int type;
+        private final CompletableFuture<byte[]> future = new CompletableFuture<>();
+
+        // parts of a split reply by index, body only. guarded by this, the timeout reads them from another thread
+        private byte[][] parts;
+        private byte[] header;
+        private int lastIndex = -1;
+
+        private Pending(int type) {
+            this.type = type;
+        }
+
+        /**
+         * Keeps one part of a split reply and returns the whole reply once every part is there, null until then.
+         * Duplicates are ignored.
+         */
+        private synchronized byte[] addPart(ByteBuffer reply) {
+            int packet = reply.get(SPLIT_PACKET) & 0xFF;
+            int index = packet & ~LAST_PACKET;
+            if (parts == null) {
+                parts = new byte[LAST_PACKET][];
+                header = new byte[SPLIT_HEADER];
+                reply.get(0, header);
+            }
+            if ((packet & LAST_PACKET) != 0) {
+                lastIndex = index;
+            }
+            if (parts[index] == null) {
+                parts[index] = new byte[reply.remaining() - SPLIT_HEADER];
+                reply.get(SPLIT_HEADER, parts[index]);
+            }
+
+            if (lastIndex < 0) {
+                return null;
+            }
+            for (int i = 0; i <= lastIndex; i++) {
+                if (parts[i] == null) {
+                    return null;
+                }
+            }
+            return join(lastIndex + 1, LAST_PACKET);
+        }
+
+        /**
+         * The parts received so far that follow on from the first one without a gap, or null if the first is missing.
+         * The packet byte is left without the last flag, the parser takes that as a cut off reply.
+         */
+        private synchronized byte[] partial() {
+            if (parts == null || parts[0] == null) {
+                return null;
+            }
+            int count = 0;
+            while (count < parts.length && parts[count] != null) {
+                count++;
+            }
+            return join(count, count - 1);
+        }
+
+        // one reply the way it would look unsplit: a single header, then the bodies in order
+        private byte[] join(int count, int packetByte) {
+            int length = SPLIT_HEADER;
+            for (int i = 0; i < count; i++) {
+                length += parts[i].length;
+            }
+            byte[] data = Arrays.copyOf(header, length);
+            data[SPLIT_PACKET] = (byte) packetByte;
+            data[SPLIT_PACKET + 1] = 0;
+
+            int position = SPLIT_HEADER;
+            for (int i = 0; i < count; i++) {
+                System.arraycopy(parts[i], 0, data, position, parts[i].length);
+                position += parts[i].length;
+            }
+            return data;
+        }
+    }
+
+    private final class Endpoint {
+        private final InetSocketAddress target;
+
+        private volatile Integer token;
+        private volatile long tokenIssuedAt;
+        private volatile long lastUsedAt = System.currentTimeMillis();
+
+        // smoothed, so a far away server isn't taken for one that forgot our token
+        private volatile long roundTripNanos;
+
+        // callers that need a token while one is being fetched wait for the same handshake
+        private CompletableFuture<Integer> handshake;
+
+        private Endpoint(InetSocketAddress target) {
+            this.target = target;
+        }
+
+        private Integer usableToken(QueryConfig config) {
+            Integer current = token;
+            return current != null && System.currentTimeMillis() - tokenIssuedAt < config.getTokenLifetime().toMillis() ? current : null;
+        }
+
+        private void recordRoundTrip(long nanos) {
+            long previous = roundTripNanos;
+            roundTripNanos = previous == 0 ? nanos : previous + (nanos - previous) / 8;
+        }
+
+        // a few round trips, at least the configured floor and never more than the normal timeout
+        private long staleTokenTimeout(QueryConfig config) {
+            long rtt = TimeUnit.NANOSECONDS.toMillis(roundTripNanos);
+            return Math.min(config.getTimeout().toMillis(), Math.max(config.getStaleTokenTimeout().toMillis(), 3 * rtt));
+        }
+
+        private synchronized void invalidate(int stale) {
+            if (token != null && token == stale) {
+                token = null; // a refresh may already have replaced it, that one stays
+            }
+        }
+
+        private synchronized CompletableFuture<Integer> handshake() {
+            if (handshake != null && !handshake.isDone()) {
+                return handshake;
+            }
+
+            long issuedAt = System.currentTimeMillis();
+            int sessionId = nextSessionId();
+            handshake = send(target, TYPE_HANDSHAKE, sessionId, SocketUtils.createHandshakePacket(sessionId), config.getTimeout().toMillis())
+                    .thenApply(reply -> {
+                        int fresh = SocketUtils.extractSessionId(reply);
+                        synchronized (this) {
+                            token = fresh;
+                            tokenIssuedAt = issuedAt; // when we asked, the server's clock for it starts no earlier than that
+                        }
+                        return fresh;
+                    });
+            return handshake;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.arhum.validator.config.query;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "minecraft-server.query")
+public class QueryConfig {
+
+    // per packet, same as the old fixed socket timeout
+    private Duration timeout = Duration.ofSeconds(2);
+
+    // vanilla drops challenge tokens 30 to 60 seconds after handing them out, depending on where its cleanup timer is
+    private Duration tokenLifetime = Duration.ofSeconds(30);
+
+    // tokens this close to their lifetime are replaced in the background, so a query never has to wait for it
+    private Duration refreshBefore = Duration.ofSeconds(5);
+
+    // a stale token gets no answer at all. with a cached token we only wait this long (or 3 round trips, if that's
+    // longer) before handshaking again
+    private Duration staleTokenTimeout = Duration.ofMillis(500);
+
+    // servers nobody asked about for this long have their token forgotten, and it stops being refreshed
+    private Duration idleAfter = Duration.ofMinutes(5);
+}
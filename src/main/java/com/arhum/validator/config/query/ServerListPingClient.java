@@ -0,0 +1,100 @@
+package com.arhum.validator.config.query;
+
+import com.arhum.validator.model.response.MOTDResponse;
+import com.arhum.validator.util.SocketUtils;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOption;
+import io.netty.handler.codec.ByteToMessageDecoder;
+import io.netty.handler.codec.CorruptedFrameException;
+import io.netty.handler.codec.TooLongFrameException;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.netty.tcp.TcpClient;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Server List Ping over reactor-netty: connect, send handshake + status request, read the one status frame, hang up.
+ * Nothing is kept between pings, the server closes status connections itself anyway. Like {@link QueryClient} a
+ * slow server costs a pending future, not a thread.
+ */
+@Component
+public class ServerListPingClient {
+
+    private final ServerListPingConfig config;
+
+    public ServerListPingClient(ServerListPingConfig config) {
+        this.config = config;
+    }
+
+    /**
+     * Fails with an IOException if the server can't be reached, doesn't answer in time or answers with garbage.
+     * Cancelling the future closes the connection.
+     */
+    public CompletableFuture<MOTDResponse> statusAsync(String host, int port) {
+        byte[] request = SocketUtils.createStatusRequestPacket(host, port);
+
+        return TcpClient.create()
+                .host(host)
+                .port(port)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) config.getTimeout().toMillis())
+                .option(ChannelOption.TCP_NODELAY, true)
+                .doOnChannelInit((observer, channel, remoteAddress) -> channel.pipeline()
+                        .addFirst("statusFrameDecoder", new StatusFrameDecoder(config.getMaxResponseBytes())))
+                .connect()
+                .flatMap(connection -> connection.outbound().sendByteArray(Mono.just(request)).then()
+                        .then(connection.inbound().receive().asByteArray().next())
+                        .doFinally(signal -> connection.dispose()))
+                .timeout(config.getTimeout())
+                .flatMap(frame -> Mono.fromCallable(() -> SocketUtils.parseStatusResponse(frame, port, System.currentTimeMillis())))
+                .onErrorMap(TimeoutException.class, e -> new SocketTimeoutException("No server list ping reply from " + host + ":" + port))
+                .onErrorMap(e -> !(e instanceof IOException), e -> new IOException("Server list ping to " + host + ":" + port + " failed :: " + e.getMessage(), e))
+                .toFuture();
+    }
+
+    /**
+     * Splits on the varint length prefix and strips it. The address comes from whoever calls /server-info, so a
+     * length past the cap fails the connection instead of being buffered.
+     */
+    static final class StatusFrameDecoder extends ByteToMessageDecoder {
+        private final int maxLength;
+
+        StatusFrameDecoder(int maxLength) {
+            this.maxLength = maxLength;
+        }
+
+        @Override
+        protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) {
+            in.markReaderIndex();
+            int length = 0;
+            for (int shift = 0; ; shift += 7) {
+                if (!in.isReadable()) {
+                    in.resetReaderIndex(); // the prefix itself is split, wait for the rest
+                    return;
+                }
+                byte b = in.readByte();
+                length |= (b & 0x7F) << shift;
+                if (b >= 0) {
+                    break;
+                }
+                if (shift == 28) {
+                    throw new CorruptedFrameException("VarInt too long");
+                }
+            }
+
+            if (length <= 0 || length > maxLength) {
+                throw new TooLongFrameException("Status frame of " + length + " bytes");
+            }
+            if (in.readableBytes() < length) {
+                in.resetReaderIndex();
+                return;
+            }
+            out.add(in.readRetainedSlice(length));
+        }
+    }
+}
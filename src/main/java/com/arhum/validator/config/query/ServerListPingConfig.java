@@ -0,0 +1,33 @@
+package com.arhum.validator.config.query;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "minecraft-server.ping")
+public class ServerListPingConfig {
+
+    // off means query only, like before
+    private boolean enabled = true;
+
+    // tcp game port, 0 for the same number as the query port (vanilla's default)
+    private int port = 0;
+
+    // connect and answer together
+    private Duration timeout = Duration.ofSeconds(2);
+
+    // a server nobody knows yet is queried first, the ping starts if there is no answer after this long
+    private Duration hedgeDelay = Duration.ofMillis(200);
+
+    // how long the protocol that answered is used on its own before both are raced again
+    private Duration rememberFor = Duration.ofMinutes(10);
+
+    // status json with a favicon is a few KB, a big modpack's mod list can add a few hundred
+    private int maxResponseBytes = 1 << 20;
+}
@@ -0,0 +1,427 @@
+package com.arhum.validator.config.query;
+
+import com.arhum.validator.config.circuit.ServerCircuitBreaker;
+import com.arhum.validator.model.enums.StatusProtocol;
+import com.arhum.validator.model.response.MOTDResponse;
+import com.arhum.validator.util.FullStatParser;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps a recent {@link MOTDResponse} per server in memory, so /server-info costs a map lookup no matter how many
+ * dashboards are open. Only the configured servers ({@code host} and {@code hosts}, at most {@code maxTargets}) are
+ * polled, from startup on. Any other address is looked up once per request and nothing about it is kept, the
+ * endpoints take addresses from anyone and must not make us poll whatever they name.
+ * <p>
+ * The interval adapts: {@code activeInterval} while players are online or someone asked within
+ * {@code watchWindow}, {@code idleInterval} otherwise. The very first request for an address, and any request that
+ * finds the snapshot older than {@code maxAge} (the server stopped answering), waits for a query of its own.
+ * Everyone asking while a query for that server is out shares it, background polls included.
+ * <p>
+ * Queries go through {@link QueryClient} and never hold a thread while waiting, polling many servers costs as
+ * long as the slowest one.
+ * <p>
+ * Servers with enable-query off never answer the query, for them there is the Server List Ping over TCP
+ * ({@link ServerListPingClient}). A server we don't know yet gets the query first and, if that hasn't answered
+ * within {@code hedgeDelay}, the ping as well. Whichever answers first wins and is remembered for that server, so
+ * later lookups use it alone until {@code rememberFor} runs out or it stops working. The query is preferred because
+ * only it has the whole player list.
+ * <p>
+ * Every new snapshot goes to {@link PlayerEventHub} together with the one it replaces. Servers with event
+ * subscribers ({@link #watch}) count as watched for as long as they are subscribed. Every poll, answered or not, is
+ * also recorded in {@link StatusHistory}.
+ */
+@Component
+public class ServerStatusPoller {
+    private static final Logger logger = LoggerFactory.getLogger(ServerStatusPoller.class);
+
+    private final StatusPollerConfig config;
+    private final QueryClient queryClient;
+    private final ServerListPingClient pingClient;
+    private final ServerListPingConfig pingConfig;
+    private final ServerCircuitBreaker circuitBreaker;
+    private final PlayerEventHub eventHub;
+    private final StatusHistory history;
+    private final int port;
+
+    private final Map<String, Target> targets = new ConcurrentHashMap<>();
+
+    // which protocol answered last, per address. read on every lookup, written when that changes
+    private final Map<String, KnownProtocol> protocols = new ConcurrentHashMap<>();
+
+    // snapshots whose player list was cut off, see MOTDResponse#isTruncated
+    private final LongAdder truncatedSnapshots = new LongAdder();
+
+    public ServerStatusPoller(StatusPollerConfig config, QueryClient queryClient, ServerListPingClient pingClient,
+                              ServerListPingConfig pingConfig, ServerCircuitBreaker circuitBreaker, PlayerEventHub eventHub,
+                              StatusHistory history, @Value("${minecraft-server.port}") int port) {
+        this.config = config;
+        this.queryClient = queryClient;
+        this.pingClient = pingClient;
+        this.pingConfig = pingConfig;
+        this.circuitBreaker = circuitBreaker;
+        this.eventHub = eventHub;
+        this.history = history;
+        this.port = port;
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!config.isEnabled()) {
+            return;
+        }
+        Set<String> hosts = new LinkedHashSet<>();
+        if (config.getHost() != null) {
+            hosts.add(config.getHost().trim());
+        }
+        config.getHosts().forEach(host -> hosts.add(host.trim()));
+        hosts.remove("");
+
+        for (String host : hosts) {
+            if (targets.size() >= config.getMaxTargets()) {
+                logger.warn("polling only the first {} of {} configured servers", config.getMaxTargets(), hosts.size());
+                break;
+            }
+            targets.put(host, new Target(host));
+        }
+    }
+
+    /**
+     * Whether {@code address} is one of the servers polled in the background.
+     */
+    public boolean isPolled(String address) {
+        return targets.containsKey(address);
+    }
+
+    /**
+     * Blocking version of {@link #getSnapshotAsync}.
+     *
+     * @throws IOException if a query was needed and the server didn't answer
+     */
+    public MOTDResponse getSnapshot(String address) throws IOException {
+        try {
+            return getSnapshotAsync(address).get();
+        } catch (ExecutionException e) {
+            Throwable cause = unwrap(e.getCause());
+            if (cause instanceof IOException io) {
+                throw io;
+            }
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime; // the circuit breaker's 503
+            }
+            throw new IOException(cause.getMessage(), cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for server status", e);
+        }
+    }
+
+    /**
+     * The latest snapshot for {@code address}, after querying the server if there is none or it is too old. An
+     * address that isn't polled is queried every time. Fails with an IOException if that query got no answer.
+     */
+    public CompletableFuture<MOTDResponse> getSnapshotAsync(String address) {
+        Target target = targets.get(address);
+        if (target == null) {
+            return fetch(address, null);
+        }
+
+        long now = System.currentTimeMillis();
+        target.lastRequestedAt = now;
+
+        MOTDResponse snapshot = target.snapshot;
+        if (snapshot != null && now - snapshot.getFetchedAt() <= config.getMaxAge().toMillis()) {
+            // someone is looking now, an idle schedule shouldn't keep them on a 30s old reading
+            target.nextPollAt = Math.min(target.nextPollAt, snapshot.getFetchedAt() + config.getActiveInterval().toMillis());
+            return CompletableFuture.completedFuture(snapshot);
+        }
+        return refresh(target);
+    }
+
+    /**
+     * Keeps {@code address} polled at the active interval until the matching {@link #unwatch}, whether anyone asks
+     * for its snapshot or not. Polls it right away if there is no snapshot yet. Does nothing for an address that
+     * isn't polled, see {@link #isPolled}.
+     */
+    public void watch(String address) {
+        Target target = targets.get(address);
+        if (target == null) {
+            return;
+        }
+        target.watchers.incrementAndGet();
+        target.lastRequestedAt = System.currentTimeMillis();
+
+        MOTDResponse snapshot = target.snapshot;
+        if (snapshot == null) {
+            refresh(target).whenComplete((first, e) -> {
+                if (e != null) {
+                    logger.debug("first status poll of watched {} failed :: {}", address, unwrap(e).getMessage());
+                }
+            });
+        } else {
+            target.nextPollAt = Math.min(target.nextPollAt, snapshot.getFetchedAt() + config.getActiveInterval().toMillis());
+        }
+    }
+
+    public void unwatch(String address) {
+        Target target = targets.get(address);
+        if (target != null) {
+            target.watchers.decrementAndGet();
+            target.lastRequestedAt = System.currentTimeMillis(); // stays active for the watch window, like after a request
+        }
+    }
+
+    /**
+     * Starts a query for every server that is due and doesn't have one out already.
+     */
+    @Scheduled(fixedDelayString = "${minecraft-server.poller.tick-ms:250}")
+    public void pollDue() {
+        if (!config.isEnabled()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        protocols.values().removeIf(known -> now >= known.until);
+
+        for (Target target : targets.values()) {
+            if (now >= target.nextPollAt) {
+                refresh(target).whenComplete((snapshot, e) -> {
+                    if (e != null) {
+                        // the snapshot stays as it is and ages, maxAge decides when callers stop getting it
+                        logger.debug("status poll of {} failed :: {}", target.address, unwrap(e).getMessage());
+                    }
+                });
+            }
+        }
+    }
+
+    private CompletableFuture<MOTDResponse> refresh(Target target) {
+        synchronized (target) {
+            if (target.inFlight != null) {
+                return target.inFlight;
+            }
+
+            long startedAt = System.nanoTime();
+            CompletableFuture<MOTDResponse> query = fetch(target.address, target.snapshot);
+            target.inFlight = query;
+            // pushed out right away, a due target must not start a second query on the next tick
+            target.nextPollAt = Long.MAX_VALUE;
+
+            query.whenComplete((snapshot, e) -> {
+                int latency = (int) TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+                history.record(target.address, snapshot != null, snapshot == null ? 0 : snapshot.getNumPlayers(), latency);
+
+                synchronized (target) {
+                    if (snapshot != null) {
+                        if (snapshot.isTruncated() && (target.snapshot == null || !target.snapshot.isTruncated())) {
+                            logger.warn("status of {} came back cut off, {} of {} players listed",
+                                    target.address, snapshot.getPlayers().size(), snapshot.getNumPlayers());
+                        }
+                        MOTDResponse previous = target.snapshot;
+                        target.snapshot = snapshot;
+                        eventHub.publish(target.address, previous, snapshot);
+                    }
+                    target.inFlight = null;
+                    target.nextPollAt = System.currentTimeMillis() + intervalFor(target).toMillis();
+                }
+            });
+            return query;
+        }
+    }
+
+    private Duration intervalFor(Target target) {
+        MOTDResponse snapshot = target.snapshot;
+        boolean playersOnline = snapshot != null && snapshot.getNumPlayers() > 0;
+        boolean watched = target.watchers.get() > 0
+                || System.currentTimeMillis() - target.lastRequestedAt < config.getWatchWindow().toMillis();
+
+        return playersOnline || watched ? config.getActiveInterval() : config.getIdleInterval();
+    }
+
+    // previous lets the parser reuse the names and values that didn't change, may be null
+    private CompletableFuture<MOTDResponse> fetch(String address, MOTDResponse previous) {
+        // while the server is known to be down this fails right away instead of sitting out the timeout
+        ServerCircuitBreaker.Permit permit;
+        try {
+            permit = circuitBreaker.acquire(address);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        return lookup(address, previous)
+                .whenComplete((snapshot, e) -> {
+                    if (e == null) {
+                        permit.success();
+                    } else if (unwrap(e) instanceof IOException) {
+                        permit.failure();
+                    } else {
+                        permit.release();
+                    }
+                });
+    }
+
+    private CompletableFuture<MOTDResponse> lookup(String address, MOTDResponse previous) {
+        if (!pingConfig.isEnabled()) {
+            return viaQuery(address, previous);
+        }
+
+        KnownProtocol known = protocols.get(address);
+        if (known == null || System.currentTimeMillis() >= known.until) {
+            return new Race(address, previous).start();
+        }
+
+        CompletableFuture<MOTDResponse> lookup = known.protocol == StatusProtocol.QUERY ? viaQuery(address, previous) : viaPing(address);
+        return lookup.whenComplete((snapshot, e) -> {
+            if (e != null) {
+                protocols.remove(address, known); // maybe the server changed its mind, the next lookup races again
+            }
+        });
+    }
+
+    private CompletableFuture<MOTDResponse> viaQuery(String address, MOTDResponse previous) {
+        // one round trip most of the time, the challenge token is cached per server
+        return queryClient.fullStatAsync(address, port)
+                .thenApply(reply -> {
+                    MOTDResponse snapshot = FullStatParser.parse(reply, reply.length, System.currentTimeMillis(), previous);
+                    if (snapshot.isTruncated()) {
+                        truncatedSnapshots.increment();
+                    }
+                    return snapshot;
+                });
+    }
+
+    private CompletableFuture<MOTDResponse> viaPing(String address) {
+        return pingClient.statusAsync(address, pingConfig.getPort() > 0 ? pingConfig.getPort() : port);
+    }
+
+    public long getTruncatedSnapshots() {
+        return truncatedSnapshots.sum();
+    }
+
+    private static Throwable unwrap(Throwable e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+    }
+
+    private record KnownProtocol(StatusProtocol protocol, long until) {
+    }
+
+    /**
+     * Query now, ping after the hedge delay (or right away once the query failed), first answer wins. Fails only if
+     * both did, with the query's error and the ping's attached as suppressed.
+     */
+    private final class Race {
+        private final String address;
+        private final MOTDResponse previous;
+        private final CompletableFuture<MOTDResponse> result = new CompletableFuture<>();
+
+        // guarded by this
+        private boolean decided;
+        private CompletableFuture<MOTDResponse> ping;
+        private Throwable queryError;
+        private Throwable pingError;
+
+        private Race(String address, MOTDResponse previous) {
+            this.address = address;
+            this.previous = previous;
+        }
+
+        private CompletableFuture<MOTDResponse> start() {
+            viaQuery(address, previous).whenComplete((snapshot, e) -> done(StatusProtocol.QUERY, snapshot, e));
+            CompletableFuture.delayedExecutor(pingConfig.getHedgeDelay().toMillis(), TimeUnit.MILLISECONDS).execute(this::startPing);
+            return result;
+        }
+
+        private synchronized void startPing() {
+            if (ping != null || decided) {
+                return;
+            }
+            ping = viaPing(address);
+            ping.whenComplete((snapshot, e) -> done(StatusProtocol.PING, snapshot, e));
+        }
+
+        private void done(StatusProtocol protocol, MOTDResponse snapshot, Throwable e) {
+            if (e == null) {
+                if (win()) {
+                    // remembered before the caller hears about it, its next lookup must already take the fast path.
+                    // only for polled servers, anything else would grow with every address somebody makes up
+                    if (targets.containsKey(address)) {
+                        protocols.put(address, new KnownProtocol(protocol, System.currentTimeMillis() + pingConfig.getRememberFor().toMillis()));
+                    }
+                    logger.debug("{} answered the {} first", address, protocol);
+                    cancelPing(protocol);
+                    result.complete(snapshot);
+                }
+                return;
+            }
+
+            IOException failed = null;
+            synchronized (this) {
+                if (protocol == StatusProtocol.QUERY) {
+                    queryError = unwrap(e);
+                    if (ping == null) {
+                        startPing(); // no point sitting out the rest of the hedge delay
+                        return;
+                    }
+                } else {
+                    pingError = unwrap(e);
+                }
+                if (queryError != null && pingError != null) {
+                    failed = queryError instanceof IOException io ? io : new IOException(queryError.getMessage(), queryError);
+                    failed.addSuppressed(pingError);
+                }
+            }
+            if (failed != null && win()) {
+                result.completeExceptionally(failed);
+            }
+        }
+
+        private synchronized boolean win() {
+            if (decided) {
+                return false;
+            }
+            decided = true;
+            return true;
+        }
+
+        // the query can't be called back, but a ping still connecting or waiting can be hung up
+        private synchronized void cancelPing(StatusProtocol winner) {
+            if (winner == StatusProtocol.QUERY && ping != null) {
+                ping.cancel(true);
+            }
+        }
+    }
+
+    private static final class Target {
+        private final String address;
+
+        private volatile MOTDResponse snapshot;
+        private volatile long lastRequestedAt;
+        private volatile long nextPollAt;
+
+        // event stream subscribers, see watch()
+        private final AtomicInteger watchers = new AtomicInteger();
+
+        // guarded by the target itself
+        private CompletableFuture<MOTDResponse> inFlight;
+
+        private Target(String address) {
+            this.address = address;
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.arhum.validator.config.query;
+
+import com.arhum.validator.entity.StatusHistoryCheckpoint;
+import com.arhum.validator.model.response.StatusHistoryResponse;
+import com.arhum.validator.repository.StatusHistoryRepo;
+import com.arhum.validator.util.TimeSeriesRing;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Player count and query latency per server over the last week, fed by every {@link ServerStatusPoller} poll.
+ * Each server gets three {@link TimeSeriesRing}s, an hour by the second, a day by the minute and a week by the hour,
+ * and every sample goes into all three, so the coarse ones are rolled up as we go instead of from the fine one.
+ * Memory is fixed per server and the number of servers is capped, nothing grows with uptime.
+ * <p>
+ * The rings are written to Postgres every checkpoint interval (and on shutdown) and read back on startup, a restart
+ * loses at most one interval. That needs a schema that outlives the app: with the default {@code ddl-auto: create-drop}
+ * the status_history table goes away on shutdown along with everything else, so deployments that want the history
+ * kept set {@code SPRING_JPA_HIBERNATE_DDL_AUTO=update} (or manage the schema themselves).
+ */
+@Component
+public class StatusHistory {
+    private static final Logger logger = LoggerFactory.getLogger(StatusHistory.class);
+
+    private static final Duration[] RESOLUTIONS = {Duration.ofSeconds(1), Duration.ofMinutes(1), Duration.ofHours(1)};
+    private static final int[] CAPACITIES = {3600, 1440, 168};
+
+    public static final Duration MAX_RANGE = RESOLUTIONS[2].multipliedBy(CAPACITIES[2]);
+
+    private final StatusHistoryConfig config;
+    private final StatusHistoryRepo repo;
+
+    private final Map<String, Series> series = new ConcurrentHashMap<>();
+
+    public StatusHistory(StatusHistoryConfig config, StatusHistoryRepo repo) {
+        this.config = config;
+        this.repo = repo;
+    }
+
+    @PostConstruct
+    public void load() {
+        if (!config.isEnabled()) {
+            return;
+        }
+        try {
+            int loaded = 0;
+            for (StatusHistoryCheckpoint checkpoint : repo.findAll()) {
+                Series target = seriesFor(checkpoint.getAddress());
+                TimeSeriesRing ring = target == null ? null : target.ring(checkpoint.getResolutionSeconds());
+                if (ring != null && ring.load(checkpoint.getData())) {
+                    loaded++;
+                }
+            }
+            logger.info("loaded {} status history rings", loaded);
+        } catch (RuntimeException e) {
+            // no history is better than no startup
+            logger.warn("could not load status history :: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * One poll of {@code address}, answered or not.
+     */
+    public void record(String address, boolean online, int players, int latencyMillis) {
+        if (!config.isEnabled()) {
+            return;
+        }
+        Series target = seriesFor(address);
+        if (target == null) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        for (TimeSeriesRing ring : target.rings) {
+            ring.record(now, online, players, latencyMillis);
+        }
+        target.lastRecordedAt = now;
+        target.dirty = true;
+    }
+
+    /**
+     * The last {@code range} of {@code address}, from the finest ring that reaches back that far.
+     */
+    public StatusHistoryResponse read(String address, Duration range) {
+        long now = System.currentTimeMillis();
+        long from = now - range.toMillis();
+
+        int tier = 0;
+        while (tier < RESOLUTIONS.length - 1 && RESOLUTIONS[tier].multipliedBy(CAPACITIES[tier]).compareTo(range) < 0) {
+            tier++;
+        }
+
+        StatusHistoryResponse response = new StatusHistoryResponse();
+        response.setAddress(address);
+
+        Series target = series.get(address);
+        if (target == null) {
+            response.setStepSeconds(RESOLUTIONS[tier].toSeconds());
+            response.setPoints(List.of());
+            return response;
+        }
+
+        TimeSeriesRing ring = target.rings[tier];
+        response.setStepSeconds(ring.stepMillis(from, now, config.getMaxPoints()) / 1000);
+        response.setPoints(ring.read(from, now, config.getMaxPoints()));
+        return response;
+    }
+
+    /**
+     * Writes every ring that changed since the last checkpoint. Servers nobody polled for longer than the coarsest
+     * ring reaches back have nothing left to show and are dropped, here and in the table.
+     */
+    @Scheduled(fixedDelayString = "${minecraft-server.history.checkpoint-interval-ms:300000}",
+            initialDelayString = "${minecraft-server.history.checkpoint-interval-ms:300000}")
+    @PreDestroy
+    public void checkpoint() {
+        if (!config.isEnabled()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+
+        try {
+            for (Series target : series.values()) {
+                if (now - target.lastRecordedAt > MAX_RANGE.toMillis()) {
+                    series.remove(target.address, target);
+                    repo.deleteAll(repo.findByAddress(target.address));
+                    continue;
+                }
+                if (!target.dirty) {
+                    continue;
+                }
+                target.dirty = false; // before reading, a sample that comes in meanwhile makes it dirty again
+
+                Map<Long, StatusHistoryCheckpoint> existing = new HashMap<>();
+                for (StatusHistoryCheckpoint checkpoint : repo.findByAddress(target.address)) {
+                    existing.put(checkpoint.getResolutionSeconds(), checkpoint);
+                }
+
+                List<StatusHistoryCheckpoint> rows = new ArrayList<>(target.rings.length);
+                for (TimeSeriesRing ring : target.rings) {
+                    long resolutionSeconds = ring.getResolutionMillis() / 1000;
+                    StatusHistoryCheckpoint row = existing.get(resolutionSeconds);
+                    if (row == null) {
+                        row = new StatusHistoryCheckpoint();
+                        row.setAddress(target.address);
+                        row.setResolutionSeconds(resolutionSeconds);
+                    }
+                    row.setData(ring.toBytes());
+                    rows.add(row);
+                }
+                repo.saveAll(rows);
+            }
+        } catch (RuntimeException e) {
+            logger.warn("status history checkpoint failed :: {}", e.getMessage());
+        }
+    }
+
+    // null once maxServers other servers have a history
+    private Series seriesFor(String address) {
+        Series existing = series.get(address);
+        if (existing != null || series.size() >= config.getMaxServers()) {
+            return existing;
+        }
+        return series.computeIfAbsent(address, Series::new);
+    }
+
+    private static final class Series {
+        private final String address;
+        private final TimeSeriesRing[] rings = new TimeSeriesRing[RESOLUTIONS.length];
+
+        private volatile long lastRecordedAt = System.currentTimeMillis();
+        private volatile boolean dirty;
+
+        private Series(String address) {
+            this.address = address;
+            for (int i = 0; i < RESOLUTIONS.length; i++) {
+                rings[i] = new TimeSeriesRing(RESOLUTIONS[i], CAPACITIES[i]);
+            }
+        }
+
+        private TimeSeriesRing ring(long resolutionSeconds) {
+            for (TimeSeriesRing ring : rings) {
+                if (ring.getResolutionMillis() == resolutionSeconds * 1000) {
+                    return ring;
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.arhum.validator.config.query;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "minecraft-server.history")
+public class StatusHistoryConfig {
+
+    private boolean enabled = true;
+
+    // servers with a history, about 250 KB each. addresses past this are polled but not recorded
+    private int maxServers = 10;
+
+    // points per /server-info/history answer, neighbouring slots are merged to stay under it
+    private int maxPoints = 500;
+}
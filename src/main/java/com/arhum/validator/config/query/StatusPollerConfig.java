@@ -0,0 +1,45 @@
+package com.arhum.validator.config.query;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "minecraft-server.poller")
+public class StatusPollerConfig {
+
+    private boolean enabled = true;
+
+    // polled from startup on, together with hosts. any other address is queried on each request instead
+    private String host;
+    private List<String> hosts = new ArrayList<>();
+
+    // servers polled in the background, configured ones past this are left out
+    private int maxTargets = 20;
+
+    // while players are online or someone asked recently
+    private Duration activeInterval = Duration.ofSeconds(2);
+
+    // nobody on, nobody looking
+    private Duration idleInterval = Duration.ofSeconds(30);
+
+    // a request keeps the server "watched" for this long
+    private Duration watchWindow = Duration.ofSeconds(30);
+
+    // older snapshots are not served, the caller waits for a fresh query instead
+    private Duration maxAge = Duration.ofMinutes(1);
+
+    // addresses per /server-info/fleet request
+    private int maxFleetSize = 50;
+
+    // comment lines on /server-info/events while nothing happens, keeps proxies from cutting the stream and lets us
+    // notice viewers that are gone
+    private Duration eventHeartbeat = Duration.ofSeconds(15);
+}
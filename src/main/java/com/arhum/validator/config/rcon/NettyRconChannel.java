@@ -0,0 +1,186 @@
+package com.arhum.validator.config.rcon;
+
+import com.arhum.validator.model.enums.RconEndDetection;
+import com.arhum.validator.model.rcon.RconFrame;
+import com.arhum.validator.model.rcon.RconPacket;
+import com.arhum.validator.util.RconResponseBuffer;
+import com.arhum.validator.util.RconUtils;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.netty.Connection;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * One authenticated connection, any number of commands in flight, replies routed through an
+ * {@link RconResponseCorrelator}. Nothing here ever blocks a thread.
+ */
+public class NettyRconChannel {
+    private static final Logger logger = LoggerFactory.getLogger(NettyRconChannel.class);
+
+    private final Connection connection;
+    private final RconNettyConfig config;
+    // a retired channel closes from here once its last command is answered or given up on
+    private final RconResponseCorrelator correlator = new RconResponseCorrelator(this::writeSentinel, this::closeIfRetiredAndIdle);
+    private final long createdAt = System.currentTimeMillis();
+
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+    private volatile boolean retiring;
+
+    // the first packet after login is the auth reply, everything else goes to the correlator
+    private volatile Sinks.One<Integer> authReply;
+
+    public NettyRconChannel(Connection connection, RconNettyConfig config) {
+        this.connection = connection;
+        this.config = config;
+
+        // frames are consumed by our handler before they reach reactor's inbound flux, so nothing would ever ask
+        // reactor-netty to start reading. we read as fast as the server writes, the correlator is the only buffer
+        connection.channel().pipeline().get(RconFrameCodec.FrameHandler.class).setListener(this::onFrame);
+        connection.channel().config().setAutoRead(true);
+        connection.onDispose(() -> close(new IOException("RCON connection closed")));
+    }
+
+    public Mono<NettyRconChannel> authenticate(String password) {
+        return Mono.defer(() -> {
+            int requestId = RconUtils.nextRequestId();
+            Sinks.One<Integer> reply = Sinks.one();
+            authReply = reply;
+
+            connection.channel().writeAndFlush(new RconPacket(requestId, RconUtils.PACKET_TYPE_LOGIN, password));
+
+            return reply.asMono()
+                    .timeout(config.getAuthTimeout())
+                    .flatMap(replyId -> {
+                        if (replyId != requestId) {
+                            // -1 is what the server says for a wrong password
+                            logger.info("RCON password seems incorrect");
+                            return Mono.error(new IOException("Authentication has failed"));
+                        }
+                        return Mono.just(this);
+                    });
+        }).onErrorMap(TimeoutException.class, e -> new IOException("Timed out waiting for RCON login", e))
+          .doOnError(e -> close(e));
+    }
+
+    public <T> Mono<T> submit(String command, RconEndDetection endDetection, Function<RconResponseBuffer, T> decoder) {
+        return Mono.defer(() -> {
+            IOException rejected = checkAccepting();
+            if (rejected != null) {
+                return Mono.error(rejected);
+            }
+
+            int mainRequestId = RconUtils.nextRequestId();
+            int sentinelRequestId = RconUtils.nextRequestId();
+            CompletableFuture<T> future = correlator.register(mainRequestId, sentinelRequestId, endDetection, decoder);
+            write(mainRequestId, sentinelRequestId, command, endDetection == RconEndDetection.SENTINEL);
+            return Mono.fromFuture(future); // cancelling the Mono cancels the future, which unregisters it
+        });
+    }
+
+    public Flux<String> submitStream(String command, long maxBytes, boolean stripFormatting) {
+        return Flux.defer(() -> {
+            IOException rejected = checkAccepting();
+            if (rejected != null) {
+                return Flux.error(rejected);
+            }
+
+            int mainRequestId = RconUtils.nextRequestId();
+            int sentinelRequestId = RconUtils.nextRequestId();
+            Flux<String> fragments = correlator.registerStream(mainRequestId, sentinelRequestId, maxBytes, stripFormatting);
+            write(mainRequestId, sentinelRequestId, command, true);
+            return fragments;
+        });
+    }
+
+    public boolean isUsable() {
+        return !closed.get() && !retiring && System.currentTimeMillis() - createdAt < config.getMaxLifetime().toMillis();
+    }
+
+    boolean isClosed() {
+        return closed.get();
+    }
+
+    public void retire() {
+        retiring = true;
+        closeIfRetiredAndIdle();
+    }
+
+    public void close(Throwable cause) {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+
+        Sinks.One<Integer> reply = authReply;
+        if (reply != null) {
+            reply.tryEmitError(cause);
+        }
+        correlator.failAll(cause);
+        connection.dispose();
+    }
+
+    private IOException checkAccepting() {
+        if (closed.get()) {
+            return new IOException("RCON channel is closed");
+        }
+        if (correlator.size() >= config.getMaxInFlight() || !connection.channel().isWritable()) {
+            // push back instead of queueing without bound behind a slow server
+            return new IOException("Too many RCON commands in flight");
+        }
+        return null;
+    }
+
+    private void write(int mainRequestId, int sentinelRequestId, String command, boolean withSentinel) {
+        Channel channel = connection.channel();
+
+        // command and sentinel share one pooled buffer and one flush
+        ByteBuf out = channel.alloc().ioBuffer(RconFrameCodec.packetSize(command) + (withSentinel ? RconFrameCodec.packetSize("") : 0));
+        RconFrameCodec.writePacket(out, mainRequestId, RconUtils.PACKET_TYPE_COMMAND, command);
+        if (withSentinel) {
+            RconFrameCodec.writePacket(out, sentinelRequestId, RconUtils.SENTINEL_REQUEST_TYPE, "");
+        }
+        flush(out);
+    }
+
+    // the late sentinel for ADAPTIVE, called by the correlator on the event loop
+    private void writeSentinel(int sentinelRequestId) {
+        ByteBuf out = connection.channel().alloc().ioBuffer(RconFrameCodec.packetSize(""));
+        RconFrameCodec.writePacket(out, sentinelRequestId, RconUtils.SENTINEL_REQUEST_TYPE, "");
+        flush(out);
+    }
+
+    private void flush(ByteBuf out) {
+        connection.channel().writeAndFlush(out)
+                .addListener(write -> {
+                    if (!write.isSuccess()) {
+                        close(new IOException("Failed to write RCON command", write.cause()));
+                    }
+                });
+    }
+
+    // runs on the event loop, the frame is only valid for the duration of this call
+    private void onFrame(RconFrame frame) {
+        Sinks.One<Integer> reply = authReply;
+        if (reply != null) {
+            authReply = null;
+            reply.tryEmitValue(frame.getRequestId());
+            return;
+        }
+        correlator.onFrame(frame);
+    }
+
+    private void closeIfRetiredAndIdle() {
+        if (retiring && correlator.isEmpty()) {
+            close(new IOException("RCON channel retired"));
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.arhum.validator.config.rcon;
+
+import com.arhum.validator.model.enums.RconEndDetection;
+import com.arhum.validator.util.RconResponseBuffer;
+import io.netty.channel.ChannelOption;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.tcp.TcpClient;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+/**
+ * Non-blocking RCON transport on reactor-netty. One connection per (host, port), opened and logged into on first use
+ * and shared by every caller after that. A caller waiting on a slow server costs a pending future, not a thread.
+ */
+@Component
+public class NettyRconClient implements RconTransport {
+    private static final Logger logger = LoggerFactory.getLogger(NettyRconClient.class);
+
+    private final RconNettyConfig config;
+    private final String password;
+
+    private final Map<String, Mono<NettyRconChannel>> channels = new ConcurrentHashMap<>();
+
+    public NettyRconClient(RconNettyConfig config, @Value("${rcon.pass}") String password) {
+        this.config = config;
+        this.password = password;
+    }
+
+    @Override
+    public <T> Mono<T> execute(String host, int port, String command, RconEndDetection endDetection, Function<RconResponseBuffer, T> decoder) {
+        return channelFor(host, port)
+                .flatMap(channel -> channel.submit(command, endDetection, decoder))
+                .timeout(config.getCommandTimeout())
+                .onErrorMap(TimeoutException.class, e -> new IOException("Timed out waiting for RCON response", e));
+    }
+
+    @Override
+    public Flux<String> stream(String host, int port, String command, long maxBytes, boolean stripFormatting) {
+        return channelFor(host, port)
+                .flatMapMany(channel -> channel.submitStream(command, maxBytes, stripFormatting))
+                .timeout(config.getCommandTimeout()) // per fragment, a long dump is fine as long as it keeps coming
+                .onErrorMap(TimeoutException.class, e -> new IOException("Timed out waiting for RCON response", e));
+    }
+
+    private Mono<NettyRconChannel> channelFor(String host, int port) {
+        // the cached mono connects once, failed connects are not cached so the next caller simply tries again
+        return channels.computeIfAbsent(host + ":" + port, key -> connect(host, port)
+                .cacheInvalidateIf(channel -> {
+                    if (channel.isUsable()) {
+                        return false;
+                    }
+                    channel.retire();
+                    return true;
+                }));
+    }
+
+    Mono<NettyRconChannel> connect(String host, int port) {
+        return TcpClient.create()
+                .host(host)
+                .port(port)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) config.getConnectTimeout().toMillis())
+                .option(ChannelOption.TCP_NODELAY, true)
+                // added at channel init rather than on connect, the codec has to outlive every reactive operation
+                .doOnChannelInit((observer, channel, remoteAddress) -> channel.pipeline()
+                        .addFirst("rconPacketEncoder", new RconFrameCodec.Encoder())
+                        .addFirst("rconFrameHandler", new RconFrameCodec.FrameHandler())
+                        .addFirst("rconFrameDecoder", RconFrameCodec.frameDecoder()))
+                .connect()
+                .map(connection -> new NettyRconChannel(connection, config))
+                .flatMap(channel -> channel.authenticate(password))
+                .doOnNext(channel -> logger.debug("opened new rcon connection to {}:{}", host, port))
+                .onErrorMap(e -> !(e instanceof IOException), IOException::new);
+    }
+}
@@ -0,0 +1,22 @@
+package com.arhum.validator.config.rcon;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "rcon.cache")
+public class RconCacheConfig {
+
+    private boolean enabled = true;
+
+    // dashboards poll every few seconds, this is enough to fold their polls into one round trip
+    private Duration ttl = Duration.ofSeconds(5);
+
+    private int maxEntries = 256;
+}
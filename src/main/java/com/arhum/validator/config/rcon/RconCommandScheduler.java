@@ -0,0 +1,242 @@
+package com.arhum.validator.config.rcon;
+
+import com.arhum.validator.exception.TooManyRequestsException;
+import org.reactivestreams.Publisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Bounded, fair queue in front of the transport, one per server.
+ * <p>
+ * At most {@code maxConcurrent} commands are in flight per server. Everything else waits in one of two lanes:
+ * admin commands go first, the rest is served round robin per user, so a user with a long script gets one turn
+ * like everybody else instead of the whole server. When the queue (or the user's share of it) is full the caller
+ * is rejected with a {@link TooManyRequestsException} instead of waiting.
+ * <p>
+ * Nothing blocks, a waiting command is just an entry in a deque.
+ */
+@Component
+public class RconCommandScheduler {
+    private static final Logger logger = LoggerFactory.getLogger(RconCommandScheduler.class);
+
+    private final RconSchedulerConfig config;
+    private final Map<String, ServerQueue> queues = new ConcurrentHashMap<>();
+
+    public RconCommandScheduler(RconSchedulerConfig config) {
+        this.config = config;
+    }
+
+    public <T> Mono<T> submit(String server, String user, boolean priority, Supplier<Mono<T>> work) {
+        return Mono.from(submitMany(server, user, priority, work));
+    }
+
+    /**
+     * Runs {@code work} once it is this caller's turn. The slot is held until the publisher terminates or the caller
+     * cancels, so a streamed command counts for as long as it streams.
+     * <p>
+     * A queued command is started on whatever thread finished the one before it, usually a netty event loop, so
+     * {@code work} and subscribing to what it returns must not block. {@link NettyRconClient} connects and logs in
+     * asynchronously.
+     */
+    public <T> Flux<T> submitMany(String server, String user, boolean priority, Supplier<? extends Publisher<T>> work) {
+        return Flux.create(sink -> {
+            ServerQueue queue = queues.computeIfAbsent(server, k -> new ServerQueue());
+            Task<T> task = new Task<>(queue, user, priority, work, sink);
+
+            Admission admission = queue.offer(task);
+            if (admission == Admission.REJECTED) {
+                logger.debug("rcon queue for {} is full, rejected a command from {}", server, user);
+                sink.error(new TooManyRequestsException("Too many RCON commands queued for this server, try again shortly", 4290));
+                return;
+            }
+
+            sink.onDispose(task::cancel); // also runs after a normal finish, cancel() does nothing then
+            if (admission == Admission.RUN_NOW) {
+                task.start();
+            }
+        });
+    }
+
+    private enum Admission { RUN_NOW, QUEUED, REJECTED }
+
+    private final class ServerQueue {
+        // everything below, and the state of every task of this server, is guarded by this
+        private int running;
+        private int queued;
+        private final ArrayDeque<Task<?>> priorityLane = new ArrayDeque<>();
+
+        // insertion ordered, the user at the head gets the next turn and goes to the back if they have more
+        private final LinkedHashMap<String, ArrayDeque<Task<?>>> userLanes = new LinkedHashMap<>();
+
+        private synchronized Admission offer(Task<?> task) {
+            if (running < config.getMaxConcurrent() && queued == 0) {
+                running++; // nobody waiting, skip the queue
+                task.state = Task.STARTED;
+                return Admission.RUN_NOW;
+            }
+
+            if (queued >= config.getMaxQueued()) {
+                return Admission.REJECTED;
+            }
+
+            if (task.priority) {
+                priorityLane.add(task);
+            } else {
+                ArrayDeque<Task<?>> lane = userLanes.get(task.user);
+                if (lane == null) {
+                    lane = new ArrayDeque<>();
+                    userLanes.put(task.user, lane);
+                } else if (lane.size() >= config.getMaxQueuedPerUser()) {
+                    return Admission.REJECTED;
+                }
+                lane.add(task);
+            }
+            queued++;
+            return Admission.QUEUED;
+        }
+
+        private void release() {
+            synchronized (this) {
+                running--;
+            }
+            drain();
+        }
+
+        // hands out free slots. the lock is only held to pick, tasks are started outside of it
+        private void drain() {
+            while (true) {
+                Task<?> next;
+                synchronized (this) {
+                    next = takeNext();
+                }
+                if (next == null) {
+                    return;
+                }
+                next.start();
+            }
+        }
+
+        // caller holds the lock
+        private Task<?> takeNext() {
+            if (running >= config.getMaxConcurrent()) {
+                return null;
+            }
+
+            Task<?> next = priorityLane.poll();
+            if (next == null) {
+                Iterator<Map.Entry<String, ArrayDeque<Task<?>>>> it = userLanes.entrySet().iterator();
+                if (!it.hasNext()) {
+                    return null;
+                }
+                Map.Entry<String, ArrayDeque<Task<?>>> head = it.next();
+                next = head.getValue().poll();
+                it.remove();
+                if (!head.getValue().isEmpty()) {
+                    userLanes.put(head.getKey(), head.getValue()); // to the back of the line
+                }
+            }
+
+            queued--;
+            running++;
+            next.state = Task.STARTED;
+            return next;
+        }
+
+        // caller holds the lock
+        private void remove(Task<?> task) {
+            if (task.priority) {
+                priorityLane.remove(task);
+            } else {
+                ArrayDeque<Task<?>> lane = userLanes.get(task.user);
+                lane.remove(task);
+                if (lane.isEmpty()) {
+                    userLanes.remove(task.user);
+                }
+            }
+            queued--;
+        }
+    }
+
+    private static final class Task<T> {
+        private static final int WAITING = 0, STARTED = 1, DONE = 2;
+
+        private final ServerQueue queue;
+        private final String user;
+        private final boolean priority;
+        private final Supplier<? extends Publisher<T>> work;
+        private final FluxSink<T> sink;
+
+        // guarded by the queue. a task holds a slot exactly while it is STARTED
+        private int state = WAITING;
+        private Disposable subscription;
+        private boolean cancelled;
+
+        private Task(ServerQueue queue, String user, boolean priority, Supplier<? extends Publisher<T>> work, FluxSink<T> sink) {
+            this.queue = queue;
+            this.user = user;
+            this.priority = priority;
+            this.work = work;
+            this.sink = sink;
+        }
+
+        private void start() {
+            Disposable started;
+            try {
+                started = Flux.from(work.get())
+                        .doFinally(signal -> finish())
+                        .subscribe(sink::next, sink::error, sink::complete);
+            } catch (RuntimeException e) {
+                finish();
+                sink.error(e);
+                return;
+            }
+
+            boolean dispose;
+            synchronized (queue) {
+                subscription = started;
+                dispose = cancelled; // the caller went away while we were subscribing
+            }
+            if (dispose) {
+                started.dispose();
+            }
+        }
+
+        private void cancel() {
+            Disposable running;
+            synchronized (queue) {
+                if (state == WAITING) {
+                    queue.remove(this);
+                    state = DONE;
+                    return;
+                }
+                cancelled = true;
+                running = subscription;
+            }
+            if (running != null) {
+                running.dispose(); // finish() gives the slot back
+            }
+        }
+
+        private void finish() {
+            synchronized (queue) {
+                if (state != STARTED) {
+                    return;
+                }
+                state = DONE;
+            }
+            queue.release();
+        }
+    }
+}
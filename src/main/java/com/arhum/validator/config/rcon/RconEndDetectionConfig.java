@@ -0,0 +1,52 @@
+package com.arhum.validator.config.rcon;
+
+import com.arhum.validator.model.enums.RconCommands;
+import com.arhum.validator.model.enums.RconEndDetection;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Which {@link RconEndDetection} a command is sent with. The most specific setting wins: the server's entry for the
+ * command, the server's own strategy, the global entry for the command, then {@code strategy}.
+ */
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "rcon.end-detection")
+public class RconEndDetectionConfig {
+
+    private RconEndDetection strategy = RconEndDetection.SENTINEL;
+
+    private Map<RconCommands, RconEndDetection> commands = new HashMap<>();
+
+    // keyed by host:port, which has to be written as "[host:port]" in yaml
+    private Map<String, Server> servers = new HashMap<>();
+
+    @Getter
+    @Setter
+    public static class Server {
+
+        private RconEndDetection strategy;
+
+        private Map<RconCommands, RconEndDetection> commands = new HashMap<>();
+    }
+
+    public RconEndDetection resolve(String server, RconCommands command) {
+        Server override = servers.get(server);
+        if (override != null) {
+            RconEndDetection forCommand = override.getCommands().get(command);
+            if (forCommand != null) {
+                return forCommand;
+            }
+            if (override.getStrategy() != null) {
+                return override.getStrategy();
+            }
+        }
+        return commands.getOrDefault(command, strategy);
+    }
+}
@@ -0,0 +1,131 @@
+package com.arhum.validator.config.rcon;
+
+import com.arhum.validator.model.rcon.RconFrame;
+import com.arhum.validator.model.rcon.RconPacket;
+import com.arhum.validator.util.RconResponseBuffer;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
+import io.netty.handler.codec.MessageToByteEncoder;
+
+import java.nio.ByteOrder;
+import java.util.function.Consumer;
+
+/**
+ * Netty pipeline pieces for the RCON wire format:
+ * <pre>
+ * | length (int32 LE) | request id (int32 LE) | type (int32 LE) | payload | 0x00 | 0x00 |
+ * </pre>
+ * The length field counts everything after itself.
+ */
+public class RconFrameCodec {
+
+    private static final int MAX_FRAME_LENGTH = 4 + RconPacket.MAX_READ_LENGTH;
+
+    /**
+     * Splits the stream on the little-endian length prefix and strips it. Anything claiming to be longer than
+     * {@link RconPacket#MAX_READ_LENGTH} fails the channel instead of being buffered. Not sharable, one per channel.
+     */
+    public static LengthFieldBasedFrameDecoder frameDecoder() {
+        return new LengthFieldBasedFrameDecoder(ByteOrder.LITTLE_ENDIAN, MAX_FRAME_LENGTH, 0, 4, 0, 4, true);
+    }
+
+    /**
+     * Appends one packet to {@code out}. Used directly to put a command and its sentinel in the same pooled buffer.
+     */
+    public static void writePacket(ByteBuf out, int requestId, int type, CharSequence payload) {
+        out.writeIntLE(RconPacket.HEADER_AND_PADDING + payload.length());
+        out.writeIntLE(requestId);
+        out.writeIntLE(type);
+        out.writeCharSequence(payload, RconPacket.CHARSET);
+        out.writeByte(0x00); // Null-terminated payload
+        out.writeByte(0x00); // 1-byte pad
+    }
+
+    public static int packetSize(CharSequence payload) {
+        return 4 + RconPacket.HEADER_AND_PADDING + payload.length();
+    }
+
+    /**
+     * Hands every frame to a listener as a reused {@link RconFrame} view over the pooled buffer, nothing is copied
+     * or allocated per packet. The buffer is released as soon as the listener returns. Not sharable.
+     */
+    public static class FrameHandler extends ChannelInboundHandlerAdapter {
+
+        private final ByteBufFrame frame = new ByteBufFrame();
+        private volatile Consumer<RconFrame> listener;
+
+        public void setListener(Consumer<RconFrame> listener) {
+            this.listener = listener;
+        }
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            if (!(msg instanceof ByteBuf buf)) {
+                ctx.fireChannelRead(msg);
+                return;
+            }
+
+            try {
+                Consumer<RconFrame> current = listener;
+                if (current != null && buf.readableBytes() >= RconPacket.HEADER_AND_PADDING) {
+                    current.accept(frame.wrap(buf));
+                }
+            } finally {
+                frame.wrap(null);
+                buf.release();
+            }
+        }
+    }
+
+    public static class Encoder extends MessageToByteEncoder<RconPacket> {
+
+        @Override
+        protected void encode(ChannelHandlerContext ctx, RconPacket packet, ByteBuf out) {
+            writePacket(out, packet.getRequestId(), packet.getType(), packet.getBody());
+        }
+    }
+
+    private static final class ByteBufFrame implements RconFrame {
+        private byte[] scratch = new byte[RconPacket.MAX_RESPONSE_PAYLOAD];
+        private ByteBuf buf;
+
+        private ByteBufFrame wrap(ByteBuf buf) {
+            this.buf = buf;
+            return this;
+        }
+
+        @Override
+        public int getRequestId() {
+            return buf.getIntLE(buf.readerIndex());
+        }
+
+        @Override
+        public int getType() {
+            return buf.getIntLE(buf.readerIndex() + 4);
+        }
+
+        @Override
+        public int getBodyLength() {
+            return buf.writerIndex() - 2 - (buf.readerIndex() + 8); // both trailing null bytes are not part of the body
+        }
+
+        @Override
+        public void appendBodyTo(RconResponseBuffer target) {
+            int start = buf.readerIndex() + 8;
+            int length = getBodyLength();
+
+            if (buf.hasArray()) {
+                target.append(buf.array(), buf.arrayOffset() + start, length);
+            } else {
+                // pooled direct buffer, go through a scratch array that is reused for every frame on this channel
+                if (length > scratch.length) {
+                    scratch = new byte[length];
+                }
+                buf.getBytes(start, scratch, 0, length);
+                target.append(scratch, 0, length);
+            }
+        }
+    }
+}
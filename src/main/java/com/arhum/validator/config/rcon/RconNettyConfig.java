@@ -0,0 +1,23 @@
+package com.arhum.validator.config.rcon;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "rcon.netty")
+public class RconNettyConfig {
+
+    private Duration connectTimeout = Duration.ofSeconds(2);
+    private Duration authTimeout = Duration.ofSeconds(2);
+    private Duration commandTimeout = Duration.ofSeconds(5);
+    private Duration maxLifetime = Duration.ofMinutes(10);
+
+    // commands waiting on one connection before new ones are turned away
+    private int maxInFlight = 64;
+}
@@ -0,0 +1,20 @@
+package com.arhum.validator.config.rcon;
+
+import lombok.Getter;
+
+import java.io.IOException;
+
+/**
+ * A streamed command produced more output than the caller was willing to take. Everything up to the limit has
+ * already been emitted, the command itself ran.
+ */
+@Getter
+public class RconOutputLimitException extends IOException {
+
+    private final long limit;
+
+    public RconOutputLimitException(long limit) {
+        super("RCON output exceeded " + limit + " bytes");
+        this.limit = limit;
+    }
+}
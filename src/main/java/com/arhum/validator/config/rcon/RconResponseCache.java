@@ -0,0 +1,242 @@
+package com.arhum.validator.config.rcon;
+
+import com.arhum.validator.model.enums.RconCommands;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Short lived cache for read only commands, keyed by (server, normalised command plus whatever else changes the
+ * decoded result, like the output format).
+ * <p>
+ * Concurrent misses for the same key share one load, so a burst of dashboard polls is still a single round trip.
+ * Failed loads are never cached. Entries are grouped like {@link RconCommands#getCacheGroup()}, running a mutating
+ * command of the same group on the same server drops them, along with whatever is still loading: a read that was
+ * already on its way when the command ran is handed to the callers waiting on it but isn't kept.
+ */
+@Component
+public class RconResponseCache {
+    private static final Logger logger = LoggerFactory.getLogger(RconResponseCache.class);
+
+    // read only queries that only exist as CUSTOM commands, with the group whose commands make them stale
+    private static final Map<Pattern, String> CUSTOM_QUERIES = Map.of(
+            Pattern.compile("list"), "players",
+            Pattern.compile("time query \\S+"), "time", // daytime, gametime, day
+            Pattern.compile("whitelist list"), "whitelist");
+
+    private final RconCacheConfig config;
+
+    // access ordered, the eldest entry is the least recently used one. guarded by itself
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    // server|group -> generation of the last invalidation that hit it. guarded by entries, a load is only kept if
+    // nothing it depends on was invalidated since it started. kept as big as the cache, forgotten servers are
+    // assumed to have been invalidated at the newest generation dropped, which only costs a reload
+    private final LinkedHashMap<String, Long> invalidatedAt = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+            if (size() <= config.getMaxEntries()) {
+                return false;
+            }
+            forgottenAt = Math.max(forgottenAt, eldest.getValue());
+            return true;
+        }
+    };
+    private long generation;
+    private long forgottenAt;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public RconResponseCache(RconCacheConfig config) {
+        this.config = config;
+    }
+
+    /**
+     * Emits the cached response, or subscribes to {@code loader} if there is none. The loader is only ever
+     * subscribed on a miss, so whatever it does besides talking to the server (like auditing) is skipped on a hit.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Mono<T> get(String server, String group, String commandKey, Mono<T> loader) {
+        if (!config.isEnabled()) {
+            return loader;
+        }
+
+        return Mono.defer(() -> {
+            String key = server + "|" + commandKey;
+            long now = System.currentTimeMillis();
+            Entry entry;
+            boolean load = false;
+
+            synchronized (entries) {
+                entry = entries.get(key);
+                if (entry == null || entry.isExpired(now)) {
+                    entry = new Entry(server, group, generation);
+                    entries.put(key, entry);
+                    evictOverflow();
+                    load = true;
+                }
+            }
+
+            if (load) {
+                misses.incrementAndGet();
+                Entry loading = entry;
+                loader.subscribe(
+                        res -> {
+                            synchronized (entries) {
+                                if (isInvalidatedSince(loading)) {
+                                    entries.remove(key, loading); // raced a mutating command, the next caller reads again
+                                } else {
+                                    loading.expiresAt = System.currentTimeMillis() + config.getTtl().toMillis();
+                                }
+                            }
+                            loading.value.complete(res);
+                        },
+                        ex -> {
+                            remove(key, loading); // the next caller tries again
+                            loading.value.completeExceptionally(ex);
+                        },
+                        () -> loading.value.complete(null));
+            } else {
+                hits.incrementAndGet();
+            }
+
+            // callers giving up must not cancel a load other callers are waiting on
+            return Mono.fromFuture((CompletableFuture<T>) entry.value, true);
+        });
+    }
+
+    /**
+     * The cache group of a request's result, null if it must not be cached. Besides the cacheable commands
+     * themselves this recognises a few read only queries sent as CUSTOM, like {@code " /List"}.
+     */
+    public static String cacheGroupFor(RconCommands command, String normalizedCommand) {
+        if (command.getIsCacheable()) {
+            return command.getCacheGroup();
+        }
+        if (command != RconCommands.CUSTOM) {
+            return null;
+        }
+        for (Map.Entry<Pattern, String> query : CUSTOM_QUERIES.entrySet()) {
+            if (query.getKey().matcher(normalizedCommand).matches()) {
+                return query.getValue();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Called after a command ran (or may have). Drops whatever it could have made stale, reads leave the cache alone.
+     */
+    public void invalidate(String server, RconCommands command, String normalizedCommand) {
+        String group = command.getCacheGroup();
+        if (group == null || cacheGroupFor(command, normalizedCommand) != null) {
+            return;
+        }
+
+        int removed = 0;
+        synchronized (entries) {
+            invalidatedAt.put(server + "|" + group, ++generation);
+            Iterator<Entry> it = entries.values().iterator();
+            while (it.hasNext()) {
+                Entry entry = it.next();
+                if (entry.server.equals(server) && (RconCommands.ALL_GROUPS.equals(group) || group.equals(entry.group))) {
+                    it.remove();
+                    removed++;
+                }
+            }
+        }
+        if (removed > 0) {
+            logger.debug("{} on {} invalidated {} cached rcon responses", command.name(), server, removed);
+        }
+    }
+
+    /**
+     * Trim, drop a leading slash, collapse whitespace and lowercase, so trivially different spellings of the same
+     * query share an entry.
+     */
+    public static String normalize(String command) {
+        String trimmed = command.strip();
+        if (trimmed.startsWith("/")) {
+            trimmed = trimmed.substring(1);
+        }
+        return trimmed.replaceAll("\\s+", " ").toLowerCase();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private void remove(String key, Entry entry) {
+        synchronized (entries) {
+            entries.remove(key, entry);
+        }
+    }
+
+    // caller holds the lock
+    private boolean isInvalidatedSince(Entry entry) {
+        return lastInvalidation(entry.server + "|" + RconCommands.ALL_GROUPS) > entry.generation
+                || lastInvalidation(entry.server + "|" + entry.group) > entry.generation;
+    }
+
+    // caller holds the lock
+    private long lastInvalidation(String key) {
+        Long at = invalidatedAt.get(key);
+        return at != null ? at : forgottenAt;
+    }
+
+    // caller holds the lock
+    private void evictOverflow() {
+        Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+        while (entries.size() > config.getMaxEntries() && it.hasNext()) {
+            it.next();
+            it.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    private static final class Entry {
+        private final String server;
+        private final String group;
+
+        // the cache's generation when the load started
+        private final long generation;
+        private final CompletableFuture<Object> value = new CompletableFuture<>();
+
+        // stays at max while loading, so a slow load is joined rather than started again
+        private volatile long expiresAt = Long.MAX_VALUE;
+
+        private Entry(String server, String group, long generation) {
+            this.server = server;
+            this.group = group;
+            this.generation = generation;
+        }
+
+        private boolean isExpired(long now) {
+            return now >= expiresAt;
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package com.arhum.validator.config.rcon;
+
+import com.arhum.validator.model.enums.RconEndDetection;
+import com.arhum.validator.model.rcon.RconFrame;
+import com.arhum.validator.model.rcon.RconPacket;
+import com.arhum.validator.util.RconResponseBuffer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+
+/**
+ * Matches packets coming back on a shared connection to the commands that are waiting for them.
+ * <p>
+ * The server can split a response over several packets without saying which one is the last, so each command is
+ * sent as (command, sentinel), the sentinel being a packet type the server just echoes (see
+ * <a href='https://minecraft.wiki/w/RCON'>the wiki</a>). Fragments carrying the command's request id are appended to
+ * its buffer, and the sentinel echo completes it. The server answers in order, so a sentinel always arrives after
+ * every fragment of the command it follows.
+ * <p>
+ * Commands registered with {@link RconEndDetection#SHORT_PACKET} or {@link RconEndDetection#ADAPTIVE} go out without
+ * the sentinel and end on their first short fragment instead. For ADAPTIVE a full fragment makes the correlator ask
+ * for the sentinel through {@code sentinelWriter}, late but still behind every fragment of the command.
+ */
+public class RconResponseCorrelator {
+    private static final Logger logger = LoggerFactory.getLogger(RconResponseCorrelator.class);
+
+    private final Map<Integer, Pending> byRequestId = new ConcurrentHashMap<>();
+    private final Map<Integer, Pending> bySentinelId = new ConcurrentHashMap<>();
+
+    // decode scratch for streamed fragments, only the reader thread touches it
+    private final RconResponseBuffer fragment = new RconResponseBuffer(4096);
+
+    // puts a sentinel with the given request id on the wire, called from the reader thread
+    private final IntConsumer sentinelWriter;
+
+    // told whenever the last command in flight is gone, from whichever thread completed or cancelled it
+    private final Runnable onIdle;
+
+    public RconResponseCorrelator(IntConsumer sentinelWriter) {
+        this(sentinelWriter, () -> {
+        });
+    }
+
+    /**
+     * {@code onIdle} runs after a command is unregistered and nothing else is in flight. Callbacks added to the
+     * command's own future can't do this, they run before ours and still see it registered.
+     */
+    public RconResponseCorrelator(IntConsumer sentinelWriter, Runnable onIdle) {
+        this.sentinelWriter = sentinelWriter;
+        this.onIdle = onIdle;
+    }
+
+    /**
+     * Must be called before the packets are written, otherwise the reply can beat us to the map.
+     */
+    public CompletableFuture<String> register(int mainRequestId, int sentinelRequestId) {
+        return register(mainRequestId, sentinelRequestId, RconEndDetection.SENTINEL, RconResponseBuffer::toString);
+    }
+
+    /**
+     * Same, with the decoder deciding what the collected bytes turn into. It runs once, on the reader thread,
+     * when the end of the response is detected.
+     */
+    public <T> CompletableFuture<T> register(int mainRequestId, int sentinelRequestId, RconEndDetection endDetection,
+                                             Function<RconResponseBuffer, T> decoder) {
+        Buffered<T> pending = new Buffered<>(mainRequestId, sentinelRequestId, endDetection, decoder);
+        add(pending);
+
+        // whoever gives up on the future (timeout, cancel) should not leave entries behind
+        pending.future.whenComplete((res, ex) -> forget(pending));
+        return pending.future;
+    }
+
+    /**
+     * Like {@link #register} but every fragment is handed out the moment it is read instead of being collected.
+     * The flux completes on the sentinel. With {@code stripFormatting} the colour codes are removed from each
+     * fragment before it is decoded, also when a code is split across two fragments. Once more than {@code maxBytes} came in, the part that fits is emitted and
+     * the flux fails with {@link RconOutputLimitException}. Either way, cancelling or hitting the cap unregisters the
+     * command and whatever the server still sends for it is dropped.
+     */
+    public Flux<String> registerStream(int mainRequestId, int sentinelRequestId, long maxBytes, boolean stripFormatting) {
+        Streaming pending = new Streaming(mainRequestId, sentinelRequestId, maxBytes, stripFormatting);
+        add(pending);
+
+        return pending.sink.asFlux().doFinally(signal -> forget(pending));
+    }
+
+    public void onFrame(RconFrame frame) {
+        Pending pending = byRequestId.get(frame.getRequestId());
+        if (pending != null) {
+            pending.onFragment(frame);
+            if (pending.endDetection != RconEndDetection.SENTINEL && !pending.sentinelSent) {
+                detectEnd(pending, frame.getBodyLength());
+            }
+            return;
+        }
+
+        pending = bySentinelId.get(frame.getRequestId());
+        if (pending != null) {
+            pending.onEnd();
+            return;
+        }
+
+        // late fragments of a command that already timed out end up here, they are harmless
+        logger.debug("discarding rcon packet with unknown request id {}", frame.getRequestId());
+    }
+
+    private void detectEnd(Pending pending, int bodyLength) {
+        if (bodyLength < RconPacket.MAX_RESPONSE_PAYLOAD) {
+            pending.onEnd();
+        } else if (pending.endDetection == RconEndDetection.ADAPTIVE) {
+            // might be the last fragment, might not. the sentinel settles it
+            pending.sentinelSent = true;
+            sentinelWriter.accept(pending.sentinelRequestId);
+        }
+        // SHORT_PACKET keeps waiting for a short one
+    }
+
+    public void failAll(Throwable cause) {
+        for (Pending pending : byRequestId.values()) {
+            pending.fail(cause);
+        }
+    }
+
+    public boolean isEmpty() {
+        return byRequestId.isEmpty();
+    }
+
+    public int size() {
+        return byRequestId.size();
+    }
+
+    private void add(Pending pending) {
+        byRequestId.put(pending.mainRequestId, pending);
+        bySentinelId.put(pending.sentinelRequestId, pending);
+    }
+
+    private void forget(Pending pending) {
+        bySentinelId.remove(pending.sentinelRequestId, pending);
+        if (byRequestId.remove(pending.mainRequestId, pending) && byRequestId.isEmpty()) {
+            onIdle.run();
+        }
+    }
+
+    private abstract static class Pending {
+        final int mainRequestId;
+        final int sentinelRequestId;
+        final RconEndDetection endDetection;
+
+        // reader thread only. true from the start for SENTINEL
+        boolean sentinelSent;
+
+        Pending(int mainRequestId, int sentinelRequestId, RconEndDetection endDetection) {
+            this.mainRequestId = mainRequestId;
+            this.sentinelRequestId = sentinelRequestId;
+            this.endDetection = endDetection;
+            this.sentinelSent = endDetection == RconEndDetection.SENTINEL;
+        }
+
+        abstract void onFragment(RconFrame frame);
+
+        abstract void onEnd();
+
+        abstract void fail(Throwable cause);
+    }
+
+    private static final class Buffered<T> extends Pending {
+        // only ever touched by the single reader thread until the future completes
+        private final RconResponseBuffer body = new RconResponseBuffer();
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+        private final Function<RconResponseBuffer, T> decoder;
+
+        private Buffered(int mainRequestId, int sentinelRequestId, RconEndDetection endDetection, Function<RconResponseBuffer, T> decoder) {
+            super(mainRequestId, sentinelRequestId, endDetection);
+            this.decoder = decoder;
+        }
+
+        @Override
+        void onFragment(RconFrame frame) {
+            frame.appendBodyTo(body);
+        }
+
+        @Override
+        void onEnd() {
+            try {
+                future.complete(decoder.apply(body));
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e); // a broken decoder must not take the reader down with it
+            }
+        }
+
+        @Override
+        void fail(Throwable cause) {
+            future.completeExceptionally(cause);
+        }
+    }
+
+    private final class Streaming extends Pending {
+        // filled by the reader, drained by the consumer. the byte cap bounds how much can pile up in between
+        private final Sinks.Many<String> sink = Sinks.many().unicast().onBackpressureBuffer();
+        private final long maxBytes;
+        private final boolean stripFormatting;
+        private long received;
+
+        // the previous fragment ended on a section sign, its code byte opens this one
+        private boolean danglingCode;
+
+        private Streaming(int mainRequestId, int sentinelRequestId, long maxBytes, boolean stripFormatting) {
+            super(mainRequestId, sentinelRequestId, RconEndDetection.SENTINEL); // a stream is long by definition
+            this.maxBytes = maxBytes;
+            this.stripFormatting = stripFormatting;
+        }
+
+        @Override
+        void onFragment(RconFrame frame) {
+            fragment.reset();
+            frame.appendBodyTo(fragment);
+            if (stripFormatting) {
+                danglingCode = fragment.stripFormatting(danglingCode);
+                if (fragment.length() == 0) {
+                    return;
+                }
+            }
+            String body = fragment.toString();
+
+            long remaining = maxBytes - received;
+            if (body.length() <= remaining) {
+                received += body.length();
+                sink.tryEmitNext(body);
+                return;
+            }
+
+            if (remaining > 0) {
+                sink.tryEmitNext(body.substring(0, (int) remaining)); // latin-1, one char per byte
+            }
+            forget(this); // stop collecting now, the rest of the output is dropped as unknown ids
+            sink.tryEmitError(new RconOutputLimitException(maxBytes));
+        }
+
+        @Override
+        void onEnd() {
+            sink.tryEmitComplete();
+        }
+
+        @Override
+        void fail(Throwable cause) {
+            sink.tryEmitError(cause);
+        }
+    }
+}
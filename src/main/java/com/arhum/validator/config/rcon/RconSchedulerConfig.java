@@ -0,0 +1,22 @@
+package com.arhum.validator.config.rcon;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "rcon.scheduler")
+public class RconSchedulerConfig {
+
+    // commands in flight per server. the server runs them one after another, more only adds queueing over there
+    private int maxConcurrent = 4;
+
+    // waiting commands per server, past this callers get a 429 straight away
+    private int maxQueued = 200;
+
+    // waiting commands per user and server, so one script can't take the whole queue. a full batch still fits
+    private int maxQueuedPerUser = 50;
+}
@@ -0,0 +1,43 @@
+package com.arhum.validator.config.rcon;
+
+import com.arhum.validator.model.enums.RconEndDetection;
+import com.arhum.validator.util.RconResponseBuffer;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.function.Function;
+
+/**
+ * How commands reach the server, see {@link NettyRconClient}.
+ */
+public interface RconTransport {
+
+    /**
+     * Sends one command and emits the full (defragmented) response. Fails with an IOException on network errors,
+     * auth failure or timeout.
+     */
+    default Mono<String> execute(String host, int port, String command) {
+        return execute(host, port, command, RconResponseBuffer::toString);
+    }
+
+    /**
+     * Same, but the raw response bytes go through {@code decoder} instead of straight into a String. Lets the caller
+     * strip or parse formatting in the one pass that decodes the bytes.
+     */
+    default <T> Mono<T> execute(String host, int port, String command, Function<RconResponseBuffer, T> decoder) {
+        return execute(host, port, command, RconEndDetection.SENTINEL, decoder);
+    }
+
+    /**
+     * Same, with {@code endDetection} deciding how the end of the response is found, see {@link RconEndDetection}.
+     */
+    <T> Mono<T> execute(String host, int port, String command, RconEndDetection endDetection, Function<RconResponseBuffer, T> decoder);
+
+    /**
+     * Sends one command and emits each fragment of the response as soon as it is read. The timeout applies to the
+     * gap between fragments rather than the whole response. With {@code stripFormatting} the colour codes are taken
+     * out of each fragment before it is emitted. Past {@code maxBytes} the output is cut off and the
+     * flux fails with {@link RconOutputLimitException}. Always ends on the sentinel.
+     */
+    Flux<String> stream(String host, int port, String command, long maxBytes, boolean stripFormatting);
+}
@@ -1,6 +1,7 @@
 package com.arhum.validator.controller;
 
 import com.arhum.validator.exception.BaseException;
+import com.arhum.validator.model.rcon.RconBatchRequest;
 import com.arhum.validator.model.rcon.RconRequest;
 import com.arhum.validator.model.request.AddressAddRequest;
 import com.arhum.validator.model.response.*;
@@ -9,11 +10,16 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.io.IOException;
+import java.util.List;
 
 @CrossOrigin
 @RestController
@@ -45,8 +51,9 @@ public class MainController {
     }
 
     @PatchMapping(value = "/firewall/add-ip", produces = MediaType.APPLICATION_JSON_VALUE)
-    @Operation(summary = "Get Firewall details")
-    public CommonResponse addUserIp(@RequestBody @Valid AddressAddRequest request) throws BaseException {
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    @Operation(summary = "Adds an IP to the firewall, in the background. Follow it on /firewall/operations/{id}")
+    public FirewallOperationResponse addUserIp(@RequestBody @Valid AddressAddRequest request) throws BaseException {
         return validatorService.addIpToFirewall(request);
     }
 
@@ -58,18 +65,26 @@ public class MainController {
 
     @PreAuthorize("hasRole('ADMIN')")
     @PatchMapping(value = "/firewall/purge", produces = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseStatus(HttpStatus.ACCEPTED)
     @Operation(summary = "Purges the current list of whitelisted URLs- ONLY ADMINS")
-    public CommonResponse purge() throws BaseException {
+    public FirewallOperationResponse purge() throws BaseException {
         return validatorService.purgeFirewall();
     }
 
     @PreAuthorize("hasRole('ADMIN')")
     @PatchMapping(value = "/firewall/make-public", produces = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseStatus(HttpStatus.ACCEPTED)
     @Operation(summary = "Allows any ip to access the vm")
-    public CommonResponse makePublic() throws BaseException {
+    public FirewallOperationResponse makePublic() throws BaseException {
         return validatorService.allowPublicAccess();
     }
 
+    @GetMapping(value = "/firewall/operations/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "State of a firewall change started by add-ip, purge or make-public")
+    public FirewallOperationResponse getFirewallOperation(@PathVariable String id) throws BaseException {
+        return validatorService.getFirewallOperation(id);
+    }
+
     @GetMapping(value = "/mods/download/{fileName}", produces = MediaType.APPLICATION_JSON_VALUE)
     @Operation(summary = "Downloads a mod by filename, if it exists")
     public CommonResponse download(@PathVariable String fileName) throws BaseException {
@@ -78,10 +93,41 @@ public class MainController {
 
     @GetMapping(value = "/server-info", produces = MediaType.APPLICATION_JSON_VALUE)
     @Operation(summary = "Get MOTD of the minecraft server")
-    public MOTDResponse getServerInfo(@RequestParam String address) throws IOException {
+    public Mono<MOTDResponse> getServerInfo(@RequestParam String address) {
         return validatorService.getServerInfo(address);
     }
 
+    @GetMapping(value = "/server-info/fleet", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Status of several minecraft servers at once, queried in parallel")
+    public Mono<FleetStatusResponse> getFleetStatus(@RequestParam List<String> addresses) {
+        return validatorService.getFleetStatus(addresses);
+    }
+
+    @GetMapping(value = "/server-info/circuit", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Whether calls to the minecraft server currently fail fast because it looks down")
+    public CircuitStateResponse getCircuitState(@RequestParam String address) {
+        return validatorService.getCircuitState(address);
+    }
+
+    @GetMapping(value = "/server-info/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Players joining and leaving as server-sent events, starting with the current status")
+    public Flux<ServerSentEvent<Object>> streamPlayerEvents(@RequestParam String address) {
+        return validatorService.streamPlayerEvents(address);
+    }
+
+    @GetMapping(value = "/server-info/history", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Player count and query latency over time, e.g. range=1h, 24h or 7d")
+    public StatusHistoryResponse getStatusHistory(@RequestParam String address, @RequestParam(defaultValue = "24h") String range) {
+        return validatorService.getStatusHistory(address, range);
+    }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping(value = "/server-info/query-stats", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Reply counters of the query port, split and cut off replies included- ONLY ADMINS")
+    public QueryStatsResponse getQueryStats() {
+        return validatorService.getQueryStats();
+    }
+
     @GetMapping(value = "/mods", produces = MediaType.APPLICATION_JSON_VALUE)
     @Operation(summary = "Get current Modlist of the minecraft server")
     public ModListResponse getMods() throws BaseException {
@@ -91,8 +137,29 @@ public class MainController {
     @PreAuthorize("hasRole('ADMIN') or hasRole('USER')")
     @PostMapping(value = "/execute", produces = MediaType.APPLICATION_JSON_VALUE)
     @Operation(summary = "Execute commands via RCON")
-    public CommonResponse execute(@RequestParam String address, @RequestBody @Valid RconRequest request) throws IOException {
+    public Mono<CommonResponse> execute(@RequestParam String address, @RequestBody @Valid RconRequest request) throws IOException {
         return validatorService.executeRcon(address, request);
     }
 
+    @PreAuthorize("hasRole('ADMIN') or hasRole('USER')")
+    @PostMapping(value = "/execute/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Execute a command via RCON and stream the output as it arrives")
+    public Flux<ServerSentEvent<String>> executeStream(@RequestParam String address, @RequestBody @Valid RconRequest request) throws IOException {
+        return validatorService.streamRcon(address, request);
+    }
+
+    @PreAuthorize("hasRole('ADMIN') or hasRole('USER')")
+    @PostMapping(value = "/execute/batch", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Execute an ordered list of commands via RCON over one connection")
+    public Mono<RconBatchResponse> executeBatch(@RequestParam String address, @RequestBody @Valid RconBatchRequest request) throws IOException {
+        return validatorService.executeRconBatch(address, request);
+    }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping(value = "/execute/cache", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Hit/miss counters of the read-only RCON command cache- ONLY ADMINS")
+    public RconCacheStatsResponse getRconCacheStats() {
+        return validatorService.getRconCacheStats();
+    }
+
 }
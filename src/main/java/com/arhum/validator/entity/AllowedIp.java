@@ -0,0 +1,39 @@
+package com.arhum.validator.entity;
+
+import com.arhum.validator.entity.Base.Base;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.OffsetDateTime;
+
+/**
+ * An address add-ip put into the firewall rule, see AllowedIpRegistry. Ranges added in the console have no row and
+ * are never expired.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "allowed_ips", uniqueConstraints = {
+    @UniqueConstraint(columnNames = "address")
+}, indexes = {
+    @Index(name = "allowed_ips_last_seen", columnList = "last_seen")
+})
+public class AllowedIp extends Base {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // as it is in the rule, e.g. 1.2.3.4/32
+    @Column(name = "address", nullable = false)
+    private String address;
+
+    // whoever added it first, null when add-ip was called without a login
+    @Column(name = "owner")
+    private String owner;
+
+    // last add-ip for this address, the entry expires ttl after this
+    @Column(name = "last_seen", nullable = false)
+    private OffsetDateTime lastSeen;
+}
@@ -18,8 +18,10 @@ import java.util.UUID;
 })
 public class Execution extends Base {
 
+    // sequence instead of identity so hibernate can batch the inserts of a whole rcon batch
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "executions_seq")
+    @SequenceGenerator(name = "executions_seq", sequenceName = "executions_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "execution_id", nullable = false, unique = true)
@@ -11,8 +11,10 @@ import lombok.Setter;
 @Table(name = "execution_parameter_map")
 public class ExecutionParameter extends Base {
 
+    // sequence instead of identity so hibernate can batch the inserts of a whole rcon batch
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "execution_parameter_map_seq")
+    @SequenceGenerator(name = "execution_parameter_map_seq", sequenceName = "execution_parameter_map_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "parameter_value")
@@ -0,0 +1,32 @@
+package com.arhum.validator.entity;
+
+import com.arhum.validator.entity.Base.Base;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * One time series ring of one server as it was at the last checkpoint, see StatusHistory.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "status_history", uniqueConstraints = {
+    @UniqueConstraint(columnNames = {"address", "resolution_seconds"})
+})
+public class StatusHistoryCheckpoint extends Base {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "address", nullable = false)
+    private String address;
+
+    @Column(name = "resolution_seconds", nullable = false)
+    private Long resolutionSeconds;
+
+    // TimeSeriesRing#toBytes, a fixed size per resolution
+    @Column(name = "data", nullable = false)
+    private byte[] data;
+}
@@ -0,0 +1,7 @@
+package com.arhum.validator.exception;
+
+public class ServiceUnavailableException extends BaseException {
+    public ServiceUnavailableException(String message, int code) {
+        super(message, code);
+    }
+}
@@ -0,0 +1,7 @@
+package com.arhum.validator.exception;
+
+public class TooManyRequestsException extends BaseException {
+    public TooManyRequestsException(String message, int code) {
+        super(message, code);
+    }
+}
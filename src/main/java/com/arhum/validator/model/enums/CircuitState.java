@@ -0,0 +1,13 @@
+package com.arhum.validator.model.enums;
+
+public enum CircuitState {
+
+    // calls go through, failures are counted
+    CLOSED,
+
+    // the server looked down, calls fail straight away until the open period is over
+    OPEN,
+
+    // open period is over, a single probe call is let through to see if the server is back
+    HALF_OPEN
+}
@@ -0,0 +1,6 @@
+package com.arhum.validator.model.enums;
+
+public enum FirewallAddResult {
+    ADDED,
+    ALREADY_PRESENT
+}
@@ -0,0 +1,7 @@
+package com.arhum.validator.model.enums;
+
+public enum FirewallOperationStatus {
+    PENDING,
+    DONE,
+    FAILED
+}
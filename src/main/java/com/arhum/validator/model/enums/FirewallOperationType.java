@@ -0,0 +1,7 @@
+package com.arhum.validator.model.enums;
+
+public enum FirewallOperationType {
+    ADD_IP,
+    PURGE,
+    MAKE_PUBLIC
+}
@@ -0,0 +1,11 @@
+package com.arhum.validator.model.enums;
+
+public enum PlayerEventType {
+
+    JOIN,
+
+    LEAVE,
+
+    // numPlayers changed. sent on its own when the lists can't be compared (a ping sample or a cut off reply)
+    COUNT
+}
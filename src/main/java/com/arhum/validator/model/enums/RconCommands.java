@@ -5,25 +5,28 @@ import lombok.Getter;
 public enum RconCommands {
 
     // player related
-    KICK("kick %s", true, true),
-    BAN("ban %s", true, true),
+    KICK("kick %s", true, true, false, "players"),
+    BAN("ban %s", true, true, false, "players"),
     PARDON("pardon %s", true, true),
     TELEPORT("tp %s %s", true,false), // player1, player2
     GAMEMODE("gamemode %s %s", true, true), // mode, player
 
     // other
     SAY("say %s", true, true),
-    TIME_SET("time set %s", true, false),
+    TIME_SET("time set %s", true, false, false, "time"),
     WEATHER_SET("weather %s", true, false),
-    STOP("stop", true, true),
-    CUSTOM("custom command can have anything", true, true),
+    STOP("stop", true, true, false, RconCommands.ALL_GROUPS),
+    CUSTOM("custom command can have anything", true, true, false, RconCommands.ALL_GROUPS),
 
     // might support these later
-    WHITELIST_ADD("whitelist add %s", false, true),
-    WHITELIST_REMOVE("whitelist remove %s", false, true),
-    WHITELIST_RELOAD("whitelist reload", false, true),
+    WHITELIST_ADD("whitelist add %s", false, true, false, "whitelist"),
+    WHITELIST_REMOVE("whitelist remove %s", false, true, false, "whitelist"),
+    WHITELIST_RELOAD("whitelist reload", false, true, false, "whitelist"),
     GIVE("give %s %s %s", false, true);
 
+    // a mutating command in this group could have changed anything
+    public static final String ALL_GROUPS = "*";
+
     @Getter
     private final String commandFormat;
 
@@ -33,13 +36,25 @@ public enum RconCommands {
     @Getter
     private final Boolean isAdmin;
 
+    @Getter
+    private final Boolean isCacheable;
+
+    // cached results in a group are dropped whenever a non cacheable command of the same group runs
+    @Getter
+    private final String cacheGroup;
+
     RconCommands(String command, Boolean isEnabled, Boolean isAdmin) {
+        this(command, isEnabled, isAdmin, false, null);
+    }
+
+    RconCommands(String command, Boolean isEnabled, Boolean isAdmin, Boolean isCacheable, String cacheGroup) {
         this.commandFormat = command;
         this.isEnabled = isEnabled;
         this.isAdmin = isAdmin;
+        this.isCacheable = isCacheable;
+        this.cacheGroup = cacheGroup;
     }
     public String format(Object... args) {
         return String.format(this.commandFormat, args);
     }
-
 }
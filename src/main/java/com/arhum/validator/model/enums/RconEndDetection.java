@@ -0,0 +1,20 @@
+package com.arhum.validator.model.enums;
+
+/**
+ * How we tell that the server is done answering a command. RCON has no end-of-response marker, responses longer
+ * than 4096 bytes just arrive as several packets with the same request id.
+ */
+public enum RconEndDetection {
+
+    // a type 200 packet right behind every command, its "Unknown request" echo means everything before it arrived.
+    // always right, costs an extra packet each way per command
+    SENTINEL,
+
+    // a fragment shorter than 4096 bytes is the last one. no extra packets, but an answer that is an exact multiple
+    // of 4096 bytes never ends and runs into the command timeout
+    SHORT_PACKET,
+
+    // SHORT_PACKET, except that a full 4096 byte fragment makes us send the sentinel after the fact. one extra round
+    // trip for big answers only, never hangs
+    ADAPTIVE
+}
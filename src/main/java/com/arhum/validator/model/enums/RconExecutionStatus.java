@@ -0,0 +1,8 @@
+package com.arhum.validator.model.enums;
+
+public enum RconExecutionStatus {
+
+    OK,
+    FAILED,
+    SKIPPED
+}
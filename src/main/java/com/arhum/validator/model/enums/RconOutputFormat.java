@@ -0,0 +1,16 @@
+package com.arhum.validator.model.enums;
+
+/**
+ * What to do with the section sign (byte 167) formatting codes in a command's output.
+ */
+public enum RconOutputFormat {
+
+    // exactly what the server sent, codes included
+    RAW,
+
+    // codes removed, plain text
+    STRIP,
+
+    // codes turned into a list of (text, colour, style) spans for the UI to render
+    SPANS
+}
@@ -0,0 +1,13 @@
+package com.arhum.validator.model.enums;
+
+/**
+ * The two ways to ask a server for its status.
+ */
+public enum StatusProtocol {
+
+    // GameSpy4 full stat over UDP, needs enable-query. the whole player list
+    QUERY,
+
+    // Server List Ping over TCP on the game port, always there. only a sample of the players
+    PING
+}
@@ -0,0 +1,19 @@
+package com.arhum.validator.model.rcon;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+public class RconBatchRequest {
+
+    @NotEmpty(message = "A batch needs at least one command.")
+    private List<@Valid RconRequest> commands;
+
+    // false: run everything and report each result. true: stop at the first failure, the rest are skipped
+    private Boolean stopOnError = false;
+}
@@ -0,0 +1,19 @@
+package com.arhum.validator.model.rcon;
+
+import com.arhum.validator.util.RconResponseBuffer;
+
+/**
+ * Read-only view of one received RCON packet. Codecs hand out the same (reused) instance for every packet, so
+ * it is only valid until the next read and the body should be appended somewhere rather than kept.
+ */
+public interface RconFrame {
+
+    int getRequestId();
+
+    int getType();
+
+    // payload only, without the two trailing null bytes
+    int getBodyLength();
+
+    void appendBodyTo(RconResponseBuffer target);
+}
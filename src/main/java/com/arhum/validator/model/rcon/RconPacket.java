@@ -1,5 +1,6 @@
 package com.arhum.validator.model.rcon;
 
+import com.arhum.validator.util.RconResponseBuffer;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.Setter;
@@ -9,7 +10,7 @@ import java.nio.charset.StandardCharsets;
 @Getter
 @Setter
 @AllArgsConstructor
-public class RconPacket {
+public class RconPacket implements RconFrame {
 
     /**
      * Helper constant for the character set recommended by the protocol.
@@ -19,11 +20,45 @@ public class RconPacket {
      * <p>
      * Alternatively removing byte 167 and one subsequent byte from the payload will remove all color tokens making the text more
      * human-readable for clients that do not subsequently colorize those tokens."</i>
+     * <p>
+     * Both are done while decoding, see {@link com.arhum.validator.model.enums.RconOutputFormat}.
      */
     public static final java.nio.charset.Charset CHARSET = StandardCharsets.ISO_8859_1;
 
+    /**
+     * Biggest payload the server puts in one response fragment, anything longer is split across packets.
+     */
+    public static final int MAX_RESPONSE_PAYLOAD = 4096;
+
+    /**
+     * Biggest length field we take from the server. It cuts its fragments at 4096 characters and only then encodes
+     * them, so a fragment that splits a multibyte character comes out a few bytes longer. Past this the stream is
+     * corrupt.
+     */
+    public static final int MAX_READ_LENGTH = 64 * 1024;
+
+    /**
+     * Request ID (4) + Type (4) + Null Terminator (1) + Pad (1), i.e. what the length field counts besides the payload.
+     */
+    public static final int HEADER_AND_PADDING = 10;
+
+    /**
+     * Biggest payload the protocol allows from a client to the server.
+     */
+    public static final int MAX_REQUEST_PAYLOAD = 1446;
+
     private int requestId;
     private int type;
     private String body;
 
+    @Override
+    public int getBodyLength() {
+        return body.length(); // latin-1, one byte per char
+    }
+
+    @Override
+    public void appendBodyTo(RconResponseBuffer target) {
+        byte[] bytes = body.getBytes(CHARSET);
+        target.append(bytes, 0, bytes.length);
+    }
 }
@@ -1,6 +1,7 @@
 package com.arhum.validator.model.rcon;
 
 import com.arhum.validator.model.enums.RconCommands;
+import com.arhum.validator.model.enums.RconOutputFormat;
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
 import lombok.Getter;
@@ -17,4 +18,7 @@ public class RconRequest {
 
     @NotNull(message = "Arguments list cannot be null (use an empty list for no arguments).")
     private List<String> arguments;
+
+    // what to do with the colour codes in the output
+    private RconOutputFormat format = RconOutputFormat.RAW;
 }
@@ -0,0 +1,17 @@
+package com.arhum.validator.model.response;
+
+import com.arhum.validator.model.enums.CircuitState;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class CircuitStateResponse {
+
+    private String target;
+    private CircuitState state;
+    private int consecutiveFailures;
+
+    // 0 unless OPEN, how long until the next probe is let through
+    private long retryAfterMillis;
+}
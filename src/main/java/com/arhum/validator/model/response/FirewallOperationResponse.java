@@ -0,0 +1,27 @@
+package com.arhum.validator.model.response;
+
+import com.arhum.validator.model.enums.FirewallOperationStatus;
+import com.arhum.validator.model.enums.FirewallOperationType;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class FirewallOperationResponse {
+
+    private String id;
+    private FirewallOperationType type;
+
+    // the address for ADD_IP, null otherwise
+    private String target;
+
+    private FirewallOperationStatus status;
+
+    // what the synchronous endpoint used to answer or fail with, set once the operation is over
+    private String message;
+    private Integer code;
+
+    // epoch millis
+    private long createdAt;
+    private Long finishedAt;
+}
@@ -14,6 +14,9 @@ public class FirewallRuleResponse {
     private String direction;
     private int allowedIpCount;
 
+    // rules the addresses are spread over, see FirewallShards
+    private int shards;
+
     public FirewallRuleResponse(String name, String status, String direction, int allowedIpCount) {
         this.name = name;
         this.status = status;
@@ -0,0 +1,15 @@
+package com.arhum.validator.model.response;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+public class FleetStatusResponse {
+
+    // same order as the addresses in the request
+    private List<ServerStatusResponse> servers;
+    private int online;
+}
@@ -0,0 +1,33 @@
+package com.arhum.validator.model.response;
+
+import lombok.Getter;
+
+@Getter
+public class HistoryPointResponse {
+
+    // epoch millis where the point starts
+    private final long at;
+
+    // polls that got an answer, and polls that didn't
+    private final int samples;
+    private final int offline;
+
+    private final double playersAvg;
+    private final int playersMin;
+    private final int playersMax;
+
+    private final double latencyAvgMillis;
+    private final int latencyMaxMillis;
+
+    public HistoryPointResponse(long at, int samples, int offline, double playersAvg, int playersMin, int playersMax,
+                                double latencyAvgMillis, int latencyMaxMillis) {
+        this.at = at;
+        this.samples = samples;
+        this.offline = offline;
+        this.playersAvg = playersAvg;
+        this.playersMin = playersMin;
+        this.playersMax = playersMax;
+        this.latencyAvgMillis = latencyAvgMillis;
+        this.latencyMaxMillis = latencyMaxMillis;
+    }
+}
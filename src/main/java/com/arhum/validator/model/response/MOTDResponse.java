@@ -1,37 +1,56 @@
 package com.arhum.validator.model.response;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.Getter;
-import lombok.Setter;
 
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
 
+/**
+ * One status reading of a server. Immutable, the same instance is handed to every caller until the next poll
+ * replaces it (see ServerStatusPoller).
+ */
 @Getter
-@Setter
 @JsonInclude(JsonInclude.Include.ALWAYS)
 public class MOTDResponse {
 
-    private String hostname;
-    private int numPlayers;
-    private List<String> players;
-    private String gameType;
-    private int maxPlayers;
-    private int hostPort;
-    private String version;
-    private String map;
-    private String gameId;
-
-    public MOTDResponse(Map<String, Object> rawData) {
-        this.hostname = (String) rawData.getOrDefault("hostname", "");
-        this.numPlayers = Integer.parseInt((String) rawData.getOrDefault("numplayers", "0"));
-        this.players = (List<String>) rawData.getOrDefault("players", List.of());
-        this.gameType = (String) rawData.getOrDefault("gametype", "");
-        this.maxPlayers = Integer.parseInt((String) rawData.getOrDefault("maxplayers", "0"));
-        this.hostPort = Integer.parseInt((String) rawData.getOrDefault("hostport", "25565"));
-        this.version = (String) rawData.getOrDefault("version", "");
-        this.map = (String) rawData.getOrDefault("map", "");
-        this.gameId = (String) rawData.getOrDefault("game_id", "");
+    private final String hostname;
+    private final int numPlayers;
+    private final List<String> players;
+    private final String gameType;
+    private final int maxPlayers;
+    private final int hostPort;
+    private final String version;
+    private final String map;
+    private final String gameId;
+
+    // epoch millis of the query this came from
+    private final long fetchedAt;
+
+    // the reply was cut off, players is only the start of the list
+    private final boolean truncated;
+
+    // takes the list over as is, it must not be touched afterwards
+    public MOTDResponse(String hostname, int numPlayers, List<String> players, String gameType, int maxPlayers, int hostPort,
+                        String version, String map, String gameId, long fetchedAt, boolean truncated) {
+        this.hostname = hostname;
+        this.numPlayers = numPlayers;
+        this.players = Collections.unmodifiableList(players);
+        this.gameType = gameType;
+        this.maxPlayers = maxPlayers;
+        this.hostPort = hostPort;
+        this.version = version;
+        this.map = map;
+        this.gameId = gameId;
+        this.fetchedAt = fetchedAt;
+        this.truncated = truncated;
+    }
+
+    // how old the reading is at the moment it is serialized
+    @JsonProperty("ageMillis")
+    public long getAgeMillis() {
+        return System.currentTimeMillis() - fetchedAt;
     }
 
     // I'm pretty sure I will never use this, but keeping it just because I can.
@@ -47,6 +66,8 @@ public class MOTDResponse {
                 ", version='" + version + '\'' +
                 ", map='" + map + '\'' +
                 ", gameId='" + gameId + '\'' +
+                ", fetchedAt=" + fetchedAt +
+                ", truncated=" + truncated +
                 '}';
     }
 }
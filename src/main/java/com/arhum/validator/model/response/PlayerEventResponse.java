@@ -0,0 +1,27 @@
+package com.arhum.validator.model.response;
+
+import com.arhum.validator.model.enums.PlayerEventType;
+import lombok.Getter;
+
+@Getter
+public class PlayerEventResponse {
+
+    private final PlayerEventType type;
+
+    // null for COUNT
+    private final String player;
+
+    private final int numPlayers;
+    private final int previousNumPlayers;
+
+    // epoch millis of the snapshot that showed the change
+    private final long at;
+
+    public PlayerEventResponse(PlayerEventType type, String player, int numPlayers, int previousNumPlayers, long at) {
+        this.type = type;
+        this.player = player;
+        this.numPlayers = numPlayers;
+        this.previousNumPlayers = previousNumPlayers;
+        this.at = at;
+    }
+}
@@ -0,0 +1,16 @@
+package com.arhum.validator.model.response;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class QueryStatsResponse {
+
+    private long replies;
+    private long multiPacketReplies;
+    private long incompleteReplies;
+    private long truncatedSnapshots;
+    private long largestReplyBytes;
+    private int pending;
+}
@@ -0,0 +1,16 @@
+package com.arhum.validator.model.response;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+public class RconBatchResponse {
+
+    private int succeeded;
+    private int failed;
+    private int skipped;
+    private List<RconBatchResult> results;
+}
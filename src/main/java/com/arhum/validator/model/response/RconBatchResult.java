@@ -0,0 +1,28 @@
+package com.arhum.validator.model.response;
+
+import com.arhum.validator.model.enums.RconCommands;
+import com.arhum.validator.model.enums.RconExecutionStatus;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class RconBatchResult {
+
+    private int index;
+    private RconCommands command;
+    private RconExecutionStatus status;
+    private String output;
+    private List<RconTextSpan> spans;
+    private String error;
+
+    public RconBatchResult(int index, RconCommands command, RconExecutionStatus status) {
+        this.index = index;
+        this.command = command;
+        this.status = status;
+    }
+}
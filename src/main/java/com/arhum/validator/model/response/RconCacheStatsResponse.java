@@ -0,0 +1,14 @@
+package com.arhum.validator.model.response;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class RconCacheStatsResponse {
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private int size;
+}
@@ -0,0 +1,23 @@
+package com.arhum.validator.model.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * Output of a command run with {@code format: SPANS}. The spans concatenated are the plain text, so message is left
+ * empty rather than sending everything twice.
+ */
+@Getter
+@Setter
+public class RconOutputResponse extends CommonResponse {
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<RconTextSpan> spans;
+
+    public RconOutputResponse(List<RconTextSpan> spans) {
+        this.spans = spans;
+    }
+}
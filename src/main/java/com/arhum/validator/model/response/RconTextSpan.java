@@ -0,0 +1,23 @@
+package com.arhum.validator.model.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * A run of output text that shares one colour and style. Colour names are the ones minecraft uses in json text
+ * (red, dark_aqua, ...), null means the client's default. Only styles that are on are serialised.
+ */
+@Getter
+@Setter
+@JsonInclude(JsonInclude.Include.NON_DEFAULT)
+public class RconTextSpan {
+
+    private String text;
+    private String color;
+    private boolean bold;
+    private boolean italic;
+    private boolean underlined;
+    private boolean strikethrough;
+    private boolean obfuscated;
+}
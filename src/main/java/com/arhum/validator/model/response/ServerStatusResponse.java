@@ -0,0 +1,18 @@
+package com.arhum.validator.model.response;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class ServerStatusResponse {
+
+    private String address;
+    private boolean online;
+
+    // null when the server didn't answer
+    private MOTDResponse info;
+
+    // why it didn't, null when online
+    private String error;
+}
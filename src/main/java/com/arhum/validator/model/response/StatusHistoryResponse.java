@@ -0,0 +1,19 @@
+package com.arhum.validator.model.response;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+public class StatusHistoryResponse {
+
+    private String address;
+    private String range;
+
+    // width of each point, at least the resolution of the ring it was read from
+    private long stepSeconds;
+
+    private List<HistoryPointResponse> points;
+}
@@ -0,0 +1,21 @@
+package com.arhum.validator.repository;
+
+import com.arhum.validator.entity.AllowedIp;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface AllowedIpRepo extends JpaRepository<AllowedIp, Long> {
+
+    Optional<AllowedIp> findByAddress(String address);
+
+    List<AllowedIp> findByLastSeenBefore(OffsetDateTime cutoff);
+
+    // least recently seen first
+    List<AllowedIp> findByLastSeenGreaterThanEqualOrderByLastSeenAsc(OffsetDateTime cutoff, Pageable page);
+}
@@ -0,0 +1,13 @@
+package com.arhum.validator.repository;
+
+import com.arhum.validator.entity.StatusHistoryCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface StatusHistoryRepo extends JpaRepository<StatusHistoryCheckpoint, Long> {
+
+    List<StatusHistoryCheckpoint> findByAddress(String address);
+}
@@ -1,33 +1,56 @@
 package com.arhum.validator.service.contract;
 
 import com.arhum.validator.exception.BaseException;
+import com.arhum.validator.model.rcon.RconBatchRequest;
 import com.arhum.validator.model.rcon.RconRequest;
 import com.arhum.validator.model.request.AddressAddRequest;
 import com.arhum.validator.model.response.*;
+import org.springframework.http.codec.ServerSentEvent;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.io.IOException;
+import java.util.List;
 
 public interface ValidatorService {
 
     CommonResponse doPong();
 
-    CommonResponse addIpToFirewall(AddressAddRequest request) throws BaseException;
+    FirewallOperationResponse addIpToFirewall(AddressAddRequest request) throws BaseException;
 
     CommonResponse isIpPresent(String ip) throws BaseException;
 
-    CommonResponse purgeFirewall() throws BaseException;
+    FirewallOperationResponse purgeFirewall() throws BaseException;
 
-    CommonResponse allowPublicAccess() throws BaseException;
+    FirewallOperationResponse allowPublicAccess() throws BaseException;
+
+    FirewallOperationResponse getFirewallOperation(String id) throws BaseException;
 
     InstanceDetailResponse getMachineDetails() throws BaseException;
 
     FirewallRuleResponse getFirewallDetails() throws BaseException;
 
-    MOTDResponse getServerInfo(String address) throws IOException;
+    Mono<MOTDResponse> getServerInfo(String address);
+
+    Mono<FleetStatusResponse> getFleetStatus(List<String> addresses);
+
+    CircuitStateResponse getCircuitState(String address);
+
+    Flux<ServerSentEvent<Object>> streamPlayerEvents(String address);
+
+    StatusHistoryResponse getStatusHistory(String address, String range);
+
+    QueryStatsResponse getQueryStats();
 
     ModListResponse getModList() throws BaseException;
 
     CommonResponse download(String object) throws BaseException;
 
-    CommonResponse executeRcon(String address, RconRequest request) throws IOException;
+    Mono<CommonResponse> executeRcon(String address, RconRequest request) throws IOException;
+
+    Flux<ServerSentEvent<String>> streamRcon(String address, RconRequest request) throws IOException;
+
+    Mono<RconBatchResponse> executeRconBatch(String address, RconBatchRequest request) throws IOException;
+
+    RconCacheStatsResponse getRconCacheStats();
 }
\ No newline at end of file
@@ -1,50 +1,77 @@
 package com.arhum.validator.service.impl;
 
-import com.arhum.validator.config.RconClient;
+import com.arhum.validator.config.circuit.ServerCircuitBreaker;
+import com.arhum.validator.config.firewall.AllowedIpRegistry;
+import com.arhum.validator.config.firewall.FirewallOperationTracker;
+import com.arhum.validator.config.firewall.FirewallRangeCache;
+import com.arhum.validator.config.firewall.FirewallShards;
+import com.arhum.validator.config.query.PlayerEventHub;
+import com.arhum.validator.config.query.QueryClient;
+import com.arhum.validator.config.query.ServerStatusPoller;
+import com.arhum.validator.config.query.StatusHistory;
+import com.arhum.validator.config.query.StatusPollerConfig;
+import com.arhum.validator.config.rcon.RconCommandScheduler;
+import com.arhum.validator.config.rcon.RconEndDetectionConfig;
+import com.arhum.validator.config.rcon.RconOutputLimitException;
+import com.arhum.validator.config.rcon.RconResponseCache;
+import com.arhum.validator.config.rcon.RconTransport;
 import com.arhum.validator.entity.Execution;
 import com.arhum.validator.entity.ExecutionParameter;
 import com.arhum.validator.exception.*;
 import com.arhum.validator.model.LoggedInUser;
+import com.arhum.validator.model.enums.FirewallAddResult;
+import com.arhum.validator.model.enums.FirewallOperationType;
 import com.arhum.validator.model.enums.IpStatus;
 import com.arhum.validator.model.enums.RconCommands;
+import com.arhum.validator.model.enums.RconExecutionStatus;
+import com.arhum.validator.model.enums.RconOutputFormat;
+import com.arhum.validator.model.rcon.RconBatchRequest;
+import com.arhum.validator.model.rcon.RconPacket;
 import com.arhum.validator.model.rcon.RconRequest;
 import com.arhum.validator.model.request.AddressAddRequest;
 import com.arhum.validator.model.response.*;
-import com.arhum.validator.repository.ExecutionParameterRepo;
 import com.arhum.validator.repository.ExecutionRepo;
 import com.arhum.validator.service.contract.ValidatorService;
 import com.arhum.validator.util.GeneralUtils;
+import com.arhum.validator.util.RconResponseBuffer;
 import com.arhum.validator.util.UserUtils;
 import com.google.cloud.compute.v1.*;
 import com.google.cloud.storage.*;
-import jakarta.transaction.Transactional;
 import lombok.SneakyThrows;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 import java.io.IOException;
-import java.net.DatagramPacket;
-import java.net.DatagramSocket;
-import java.net.InetSocketAddress;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
 
-    import static com.arhum.validator.util.RconUtils.executeCommand;
 import static com.arhum.validator.util.SocketUtils.*;
 
 @Service
 public class ValidatorServiceImpl implements ValidatorService {
     private static final Logger logger = LoggerFactory.getLogger(ValidatorServiceImpl.class);
 
+    private static final String ALREADY_ALLOWED = "This IP is already allowed, it won't expire for a while now";
+
     @Value("${google.project-id}")
     private String projectId;
 
@@ -57,9 +84,6 @@ public class ValidatorServiceImpl implements ValidatorService {
     @Value("${google.compute.firewall-name}")
     private String firewallName;
 
-    @Value("${minecraft-server.port}")
-    private String port;
-
     @Value("${google.storage.bucket}")
     private String bucketName;
 
@@ -72,14 +96,29 @@ public class ValidatorServiceImpl implements ValidatorService {
     @Value("${rcon.pass}")
     private String rconPass;
 
+    @Value("${rcon.batch.max-size:50}")
+    private int maxBatchSize;
+
+    @Value("${rcon.stream.max-bytes:262144}")
+    private long maxStreamBytes;
+
     @Autowired
     private ExecutionRepo executionRepo;
 
     @Autowired
-    private ExecutionParameterRepo executionParameterRepo;
+    private FirewallsClient firewallsClient;
 
     @Autowired
-    private FirewallsClient firewallsClient;
+    private FirewallShards firewallShards;
+
+    @Autowired
+    private FirewallOperationTracker firewallOperations;
+
+    @Autowired
+    private FirewallRangeCache firewallRanges;
+
+    @Autowired
+    private AllowedIpRegistry allowedIps;
 
     @Autowired
     private MachineTypesClient machineTypesClient;
@@ -93,129 +132,90 @@ public class ValidatorServiceImpl implements ValidatorService {
     @Autowired
     private UserUtils userUtils;
 
+    @Autowired
+    private RconTransport rconTransport;
+
+    @Autowired
+    private RconResponseCache rconCache;
+
+    @Autowired
+    private RconCommandScheduler rconScheduler;
+
+    @Autowired
+    private ServerCircuitBreaker circuitBreaker;
+
+    @Autowired
+    private RconEndDetectionConfig endDetection;
+
+    @Autowired
+    private ServerStatusPoller statusPoller;
+
+    @Autowired
+    private StatusPollerConfig statusPollerConfig;
+
+    @Autowired
+    private QueryClient queryClient;
+
+    @Autowired
+    private PlayerEventHub playerEvents;
+
+    @Autowired
+    private StatusHistory statusHistory;
+
     @Override
     public CommonResponse doPong() {
         return new CommonResponse("pong!");
     }
 
-    /*
-    Instead of directly modifying the Java source code, @SneakyThrows operates during the compilation phase.
-    Lombok injects bytecode instructions that effectively trick the Java compiler into believing that the
-    method does not throw the specified checked exception. At runtime, the exception is still thrown as a
-    checked exception, but the compiler's check is bypassed.
-
-    In this case the patchAsync().get() can throw ExecutionException || InterruptedException
-     */
-    @SneakyThrows
+    // 202 with an operation id, the patch goes out with whatever else comes in for the same shard within the batch window.
+    // an address that is already in is only kept from expiring, gcp isn't asked
     @Override
-    public CommonResponse addIpToFirewall(AddressAddRequest request) throws BaseException {
+    public FirewallOperationResponse addIpToFirewall(AddressAddRequest request) throws BaseException {
         String ip = request.getAddress();
         String target = ip + "/32";  // a singular IPv4 will always have /32 suffix.
 
         GeneralUtils.validateIPv4Address(ip);
 
-        Firewall firewall = firewallsClient.get(projectId, firewallName);
-        List<String> newSourceIpList = new ArrayList<>(firewall.getSourceRangesList());
-
-        if (newSourceIpList.contains(target)) {
-            throw new AlreadyExistsException("This IP already exists in the firewall rule!", 2222);
-        }
-        // Adding logic
-        if (newSourceIpList.size() > 50) {
-            // We will purge all current addresses.
-            newSourceIpList.clear();
+        if (allowedIps.refresh(target)) {
+            return firewallOperations.start(FirewallOperationType.ADD_IP, ip, ALREADY_ALLOWED, CompletableFuture.completedFuture(null));
         }
 
-        newSourceIpList.add(target);
-
-        Firewall newFirewallState = firewall.toBuilder()
-                .clearSourceRanges()
-                .addAllSourceRanges(newSourceIpList)
-                .build();
-
-        PatchFirewallRequest patchRequest = PatchFirewallRequest.newBuilder()
-                .setFirewall(firewallName)
-                .setProject(projectId)
-                .setFirewallResource(newFirewallState)
-                .build();
+        LoggedInUser user = userUtils.getLoggedInUser(); // security context is thread bound, read it before going async
+        String owner = user == null ? null : user.getUsername();
 
-        // Execute patch
-        Operation operation = firewallsClient.patchAsync(patchRequest).get();
-
-        // Optional: check operation status
-        if (operation.hasError()) {
-            throw new InternalServerException("Failed to patch firewall: " + operation.getError(), 500);
-        }
-        // TODO: add db entry
-
-        return new CommonResponse("Done");
+        CompletableFuture<FirewallAddResult> added = firewallShards.add(target);
+        CompletableFuture<String> recorded = added.thenCompose(result -> allowedIps.record(target, owner)
+                .thenApply(ignored -> result == FirewallAddResult.ALREADY_PRESENT ? ALREADY_ALLOWED : "Done"));
+        return firewallOperations.start(FirewallOperationType.ADD_IP, ip, recorded);
     }
 
-    // Sneaky throws is used for the same reason above
-    @SneakyThrows
     @Override
-    public CommonResponse purgeFirewall() throws BaseException {
-        Firewall firewall = firewallsClient.get(projectId, firewallName);
-        List<String> newSourceIpList = new ArrayList<>(firewall.getSourceRangesList());
-
-        if (newSourceIpList.isEmpty()) {
-            throw new BadRequestException("Allowed list is already empty!", 400);
-        }
-        newSourceIpList.clear();
-        newSourceIpList.add("1.1.1.1/32"); // A dummy address because emptying it wasn't working
-
-        Firewall newFirewallState = firewall.toBuilder()
-                .clearSourceRanges()
-                .addAllSourceRanges(newSourceIpList)
-                .build();
-
-        PatchFirewallRequest patchRequest = PatchFirewallRequest.newBuilder()
-                .setFirewall(firewallName)
-                .setProject(projectId)
-                .setFirewallResource(newFirewallState)
-                .build();
-
-        // Execute patch
-        Operation operation = firewallsClient.patchAsync(patchRequest).get();
-
-        // Optional: check operation status
-        if (operation.hasError()) {
-            throw new InternalServerException("Failed to patch firewall: " + operation.getError(), 500);
-        }
-        return new CommonResponse("Done");
+    public FirewallOperationResponse purgeFirewall() throws BaseException {
+        return firewallOperations.start(FirewallOperationType.PURGE, null, "Done", firewallShards.replaceAll(sourceIps -> {
+            if (sourceIps.isEmpty()) {
+                throw new BadRequestException("Allowed list is already empty!", 400);
+            }
+            return List.of("1.1.1.1/32"); // A dummy address because emptying it wasn't working
+        }).thenRun(allowedIps::forgetAll));
     }
 
-    @SneakyThrows
     @Override
-    public CommonResponse allowPublicAccess() throws BaseException {
-        Firewall firewall = firewallsClient.get(projectId, firewallName);
-        List<String> newSourceIpList = new ArrayList<>(firewall.getSourceRangesList());
+    public FirewallOperationResponse allowPublicAccess() throws BaseException {
+        return firewallOperations.start(FirewallOperationType.MAKE_PUBLIC, null, "Done", firewallShards.replaceAll(sourceIps -> {
+            if (sourceIps.isEmpty()) {
+                throw new BadRequestException("Allowed list is already empty!", 400);
+            }
+            return List.of("0.0.0.0/0"); // denotes any ip
+        }).thenRun(allowedIps::forgetAll));
+    }
 
-        if (newSourceIpList.isEmpty()) {
-            throw new BadRequestException("Allowed list is already empty!", 400);
-        }
-        newSourceIpList.clear(); // cleanup all addresses
-        newSourceIpList.add("0.0.0.0/0"); // denotes any ip
-
-        Firewall newFirewallState = firewall.toBuilder()
-                .clearSourceRanges()
-                .addAllSourceRanges(newSourceIpList)
-                .build();
-
-        PatchFirewallRequest patchRequest = PatchFirewallRequest.newBuilder()
-                .setFirewall(firewallName)
-                .setProject(projectId)
-                .setFirewallResource(newFirewallState)
-                .build();
-
-        // Execute patch
-        Operation operation = firewallsClient.patchAsync(patchRequest).get();
-
-        // Optional: check operation status
-        if (operation.hasError()) {
-            throw new InternalServerException("Failed to patch firewall: " + operation.getError(), 500);
+    @Override
+    public FirewallOperationResponse getFirewallOperation(String id) throws BaseException {
+        FirewallOperationResponse operation = firewallOperations.get(id);
+        if (operation == null) {
+            throw new NotFoundException("No firewall operation " + id + ", they are kept for an hour", 40001);
         }
-        return new CommonResponse("Done");
+        return operation;
     }
 
     @Override
@@ -224,12 +224,9 @@ public class ValidatorServiceImpl implements ValidatorService {
 
         GeneralUtils.validateIPv4Address(ip);
 
-        Firewall firewall = firewallsClient.get(projectId, firewallName);
-        List<String> sourceIps = firewall.getSourceRangesList();
-
         CommonResponse response = new CommonResponse();
-        if (sourceIps.contains(target) || sourceIps.contains("0.0.0.0/0")) {
-            // either IP is present or any address is allowed over the firewall, the frontend does not need to know
+        if (firewallRanges.contains(target)) {
+            // either IP is present or a range covering it (0.0.0.0/0 included) is, the frontend does not need to know
             response.setMessage((String.valueOf(IpStatus.PRESENT)));
         } else {
             response.setMessage(String.valueOf(IpStatus.NOT_PRESENT));
@@ -281,72 +278,337 @@ public class ValidatorServiceImpl implements ValidatorService {
         String status = firewall.hasDisabled() && firewall.getDisabled() ? "DISABLED" : "ENABLED";
         String direction = firewall.getDirection();
 
-        int allowedIpCount = firewall.getSourceRangesCount();
+        // over all shards, the others are copies of this one
+        FirewallRuleResponse response = new FirewallRuleResponse(firewallName, status, direction, firewallRanges.totalListed());
+        response.setShards(firewallShards.shardCount());
+        return response;
 
-        return new FirewallRuleResponse(firewallName, status, direction, allowedIpCount);
+    }
 
+    @Override
+    public Mono<MOTDResponse> getServerInfo(String address) {
+        // from memory, kept fresh in the background. only the first request for an address waits for the server.
+        // the lookup may be shared with other callers, one of them going away must not cancel it
+        return Mono.fromFuture(() -> statusPoller.getSnapshotAsync(address), true)
+                .onErrorMap(e -> !(e instanceof IOException) && !(e instanceof RuntimeException),
+                        e -> new IOException(e.getMessage(), e));
     }
 
+    /*
+    All servers are asked at the same time over the one query channel, so this takes about as long as the slowest
+    of them. A server that is down (or whose circuit is open) shows up as offline instead of failing the whole thing.
+     */
     @Override
-    public MOTDResponse getServerInfo(String address) throws IOException {
-        try (DatagramSocket socket = new DatagramSocket()) {
-            socket.setSoTimeout(2000);
-            InetSocketAddress target = new InetSocketAddress(address, Integer.parseInt(port));
+    public Mono<FleetStatusResponse> getFleetStatus(List<String> addresses) {
+        List<String> distinct = addresses.stream().map(String::trim).filter(a -> !a.isEmpty()).distinct().toList();
+        if (distinct.isEmpty() || distinct.size() > statusPollerConfig.getMaxFleetSize()) {
+            throw new BadRequestException("Between 1 and " + statusPollerConfig.getMaxFleetSize() + " addresses are allowed", 4005);
+        }
 
-            byte[] handshakeRequest = createHandshakePacket();
-            sendPacket(socket, target, handshakeRequest);
+        List<CompletableFuture<ServerStatusResponse>> lookups = distinct.stream()
+                .map(address -> statusPoller.getSnapshotAsync(address)
+                        .handle((info, e) -> {
+                            ServerStatusResponse status = new ServerStatusResponse();
+                            status.setAddress(address);
+                            status.setOnline(e == null);
+                            status.setInfo(info);
+                            if (e != null) {
+                                Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                                status.setError(cause.getMessage());
+                            }
+                            return status;
+                        }))
+                .toList();
+
+        return Mono.fromFuture(CompletableFuture.allOf(lookups.toArray(CompletableFuture[]::new)))
+                .then(Mono.fromSupplier(() -> {
+                    FleetStatusResponse response = new FleetStatusResponse();
+                    response.setServers(lookups.stream().map(CompletableFuture::join).toList());
+                    response.setOnline((int) response.getServers().stream().filter(ServerStatusResponse::isOnline).count());
+                    return response;
+                }));
+    }
 
-            byte[] responseBuffer = new byte[1024];
-            DatagramPacket responsePacket = receivePacket(socket, responseBuffer);
+    @Override
+    public CircuitStateResponse getCircuitState(String address) {
+        return circuitBreaker.getState(address);
+    }
+    /*
+    Nothing in here holds the request thread while the server thinks. The controller hands the Mono back to spring,
+    which finishes the response once the command is answered. The audit insert is blocking JPA, so it is moved off
+    the event loop before it runs.
 
-            int sessionId = extractSessionId(responsePacket.getData());
+    Read only commands (see RconResponseCache#cacheGroupFor) are served from a short lived cache.
+    A hit never reaches the server and is not audited, there is nothing new to record.
+     */
+    @Override
+    public Mono<CommonResponse> executeRcon(String address, RconRequest request) throws IOException {
+        LoggedInUser user = userUtils.getLoggedInUser(); // security context is thread bound, read it before going async
+        RconCommands commandEnum = validateCommand(request, user); // no point touching the connection for a rejected command
+
+        String finalCommand = toCommandString(commandEnum, request);
+        String normalizedCommand = RconResponseCache.normalize(finalCommand);
+        String server = address + ":" + rconPort;
+
+        RconOutputFormat format = formatOf(request);
+        // queued per server behind everyone else's commands, admin commands go to the front.
+        // nothing is queued at all while the server is known to be down
+        Mono<CommonResponse> execution = circuitBreaker.protect(address, rconScheduler
+                        .submit(server, user.getUsername(), commandEnum.getIsAdmin(),
+                                () -> rconTransport.execute(address, Integer.parseInt(rconPort), finalCommand,
+                                        endDetection.resolve(server, commandEnum), decoderFor(format))))
+                .publishOn(Schedulers.boundedElastic())
+                .map(res -> {
+                    logger.info("{} executed {}", user.getUsername(), commandEnum.name()); // this is important log
+
+                    executionRepo.save(newExecution(commandEnum, request, user)); // parameters are cascaded
+                    return res;
+                });
+        // IOException in case of errors will be emitted by the transport
+
+        String cacheGroup = RconResponseCache.cacheGroupFor(commandEnum, normalizedCommand);
+        if (cacheGroup != null) {
+            return rconCache.get(server, cacheGroup, normalizedCommand + "|" + format, execution);
+        }
 
-            byte[] fullQueryRequest = createFullQueryPacket(sessionId);
-            sendPacket(socket, target, fullQueryRequest);
+        return execution
+                .doFinally(signal -> rconCache.invalidate(server, commandEnum, normalizedCommand)); // even on failure, it may have gone through
+    }
 
-            DatagramPacket fullResponsePacket = receivePacket(socket, responseBuffer);
+    /*
+    Same checks and audit as executeRcon, but fragments go out to the client as the server sends them. A long dump
+    shows up right away and nothing has to hold the whole output in memory. Past the byte cap the rest is dropped and
+    the client gets a 'truncated' event instead of the remainder. Once the stream has started the status is already
+    200, so failures from then on (including a full queue or a server that is down) arrive as an 'error' event.
+     */
+    @Override
+    public Flux<ServerSentEvent<String>> streamRcon(String address, RconRequest request) throws IOException {
+        LoggedInUser user = userUtils.getLoggedInUser();
+        RconCommands commandEnum = validateCommand(request, user);
 
-            return new MOTDResponse(parseFullQueryResponse(fullResponsePacket.getData()));
+        RconOutputFormat format = formatOf(request);
+        if (format == RconOutputFormat.SPANS) {
+            // a span can straddle two fragments, there is no sensible way to hand them out one by one
+            throw new BadRequestException("SPANS output is not available for streamed commands", 4004);
         }
+
+        String finalCommand = toCommandString(commandEnum, request);
+        String normalizedCommand = RconResponseCache.normalize(finalCommand);
+
+        Flux<ServerSentEvent<String>> output = circuitBreaker.protectMany(address, rconScheduler
+                        .submitMany(address + ":" + rconPort, user.getUsername(), commandEnum.getIsAdmin(),
+                                () -> rconTransport.stream(address, Integer.parseInt(rconPort), finalCommand, maxStreamBytes, format == RconOutputFormat.STRIP)))
+                .doFinally(signal -> rconCache.invalidate(address + ":" + rconPort, commandEnum, normalizedCommand))
+                .map(fragment -> ServerSentEvent.builder(fragment).event("output").build());
+
+        Mono<ServerSentEvent<String>> done = Mono.fromCallable(() -> {
+            logger.info("{} executed {} (streamed)", user.getUsername(), commandEnum.name()); // this is important log
+
+            executionRepo.save(newExecution(commandEnum, request, user));
+            return ServerSentEvent.<String>builder().event("done").build();
+        }).subscribeOn(Schedulers.boundedElastic());
+
+        return output
+                .onErrorResume(RconOutputLimitException.class, e -> Mono.just(
+                        ServerSentEvent.builder(e.getMessage()).event("truncated").build()))
+                .concatWith(done) // the command did run when the output got cut off, so it is audited either way
+                .onErrorResume(e -> e instanceof IOException || e instanceof BaseException, e -> Mono.just(
+                        ServerSentEvent.builder(e.getMessage()).event("error").build()));
     }
+
     @Override
-    @Transactional
-    public CommonResponse executeRcon(String address, RconRequest request) throws IOException {
-        String res;
+    public Mono<RconBatchResponse> executeRconBatch(String address, RconBatchRequest request) throws IOException {
         LoggedInUser user = userUtils.getLoggedInUser();
+        List<RconRequest> commands = request.getCommands();
 
-        try (RconClient client = new RconClient(address, Integer.parseInt(rconPort), rconPass)){
-            RconCommands commandEnum = validateCommand(request, user);
+        if (commands == null || commands.isEmpty() || commands.size() > maxBatchSize) {
+            throw new BadRequestException("A batch must have between 1 and " + maxBatchSize + " commands", 4002);
+        }
 
-            if (commandEnum == RconCommands.CUSTOM) {
-                assert request.getArguments().size() <= 1 : "The first argument should house the entire command";
-                res = executeCommand(request.getArguments().get(0), client);
+        // everything is validated before anything is sent, a typo at the end should not leave half a script applied
+        List<RconCommands> commandEnums = new ArrayList<>(commands.size());
+        List<String> finalCommands = new ArrayList<>(commands.size());
+        for (RconRequest command : commands) {
+            RconCommands commandEnum = validateCommand(command, user);
+            commandEnums.add(commandEnum);
+            finalCommands.add(toCommandString(commandEnum, command));
+        }
 
-            } else {
-                String finalCommand = commandEnum.format(request.getArguments().toArray());
-                res = executeCommand(finalCommand, client);
-            }
+        int port = Integer.parseInt(rconPort);
+        Flux<RconBatchResult> results;
+
+        if (Boolean.TRUE.equals(request.getStopOnError())) {
+            // one at a time, otherwise commands after the failure would already be on the wire
+            AtomicBoolean failed = new AtomicBoolean(false);
+            results = Flux.range(0, finalCommands.size())
+                    .concatMap(i -> failed.get()
+                            ? Mono.just(new RconBatchResult(i, commandEnums.get(i), RconExecutionStatus.SKIPPED))
+                            : runBatchItem(address, port, user, i, commandEnums.get(i), finalCommands.get(i), formatOf(commands.get(i)))
+                                .doOnNext(r -> failed.compareAndSet(false, r.getStatus() == RconExecutionStatus.FAILED)));
+
+        } else {
+            // best effort: everything goes out back to back and the answers are collected in order
+            results = Flux.range(0, finalCommands.size())
+                    .flatMapSequential(i -> runBatchItem(address, port, user, i, commandEnums.get(i), finalCommands.get(i), formatOf(commands.get(i))));
+        }
 
-            logger.info("{} executed {}", user.getUsername(), commandEnum.name()); // this is important log
+        return results.collectList()
+                .publishOn(Schedulers.boundedElastic())
+                .map(list -> {
+                    // only what actually ran gets audited, same as the single command path. one flush, batched inserts
+                    List<Execution> executions = new ArrayList<>();
+                    for (RconBatchResult result : list) {
+                        if (result.getStatus() == RconExecutionStatus.OK) {
+                            executions.add(newExecution(result.getCommand(), commands.get(result.getIndex()), user));
+                        }
+                    }
+                    executionRepo.saveAll(executions);
+
+                    logger.info("{} executed a batch of {} commands, {} succeeded", user.getUsername(), commands.size(), executions.size()); // this is important log
+
+                    RconBatchResponse response = new RconBatchResponse();
+                    response.setResults(list);
+                    response.setSucceeded(executions.size());
+                    response.setFailed((int) list.stream().filter(r -> r.getStatus() == RconExecutionStatus.FAILED).count());
+                    response.setSkipped((int) list.stream().filter(r -> r.getStatus() == RconExecutionStatus.SKIPPED).count());
+
+                    return response;
+                });
+    }
 
-            Execution execution = new Execution();
-            execution.setCommand(commandEnum);
-            execution.setUsername(user.getUsername());
-            execution.setParameterCount(request.getArguments().size());
+    private Mono<RconBatchResult> runBatchItem(String address, int port, LoggedInUser user, int index, RconCommands commandEnum,
+                                               String finalCommand, RconOutputFormat format) {
+        // batches always go to the server, but what they change must not be served stale afterwards.
+        // each item takes its own turn in the queue, so a long batch doesn't hold up other users
+        return circuitBreaker.protect(address, rconScheduler
+                        .submit(address + ":" + port, user.getUsername(), commandEnum.getIsAdmin(),
+                                () -> rconTransport.execute(address, port, finalCommand,
+                                        endDetection.resolve(address + ":" + port, commandEnum), decoderFor(format))))
+                .doFinally(signal -> rconCache.invalidate(address + ":" + port, commandEnum, RconResponseCache.normalize(finalCommand)))
+                .map(output -> {
+                    RconBatchResult result = new RconBatchResult(index, commandEnum, RconExecutionStatus.OK);
+                    result.setOutput(output.getMessage());
+                    if (output instanceof RconOutputResponse spans) {
+                        result.setSpans(spans.getSpans());
+                    }
+                    return result;
+                })
+                .onErrorResume(e -> e instanceof IOException || e instanceof TooManyRequestsException || e instanceof ServiceUnavailableException, e -> {
+                    RconBatchResult result = new RconBatchResult(index, commandEnum, RconExecutionStatus.FAILED);
+                    result.setError(e.getMessage());
+                    return Mono.just(result);
+                });
+    }
 
-            execution = executionRepo.save(execution);
+    /*
+    Every viewer shares the poller's one poll per server, the hub diffs the snapshots and fans the result out. The
+    first event is the current snapshot, the baseline the join/leave events apply to.
+     */
+    @Override
+    public Flux<ServerSentEvent<Object>> streamPlayerEvents(String address) {
+        if (!statusPollerConfig.isEnabled()) {
+            throw new BadRequestException("Player events need the status poller, it is disabled", 4006);
+        }
+        if (!statusPoller.isPolled(address)) {
+            throw new BadRequestException("Player events are only available for the servers that are polled", 4008);
+        }
 
-            for (String arg : request.getArguments()) {
-                ExecutionParameter parameter = new ExecutionParameter();
-                parameter.setParameterValue(arg);
-                parameter.setExecution(execution);
+        Flux<ServerSentEvent<Object>> events = playerEvents.events(address)
+                .map(event -> ServerSentEvent.builder(event)
+                        .event(event instanceof PlayerEventResponse player ? player.getType().name().toLowerCase() : "snapshot")
+                        .build());
+        Flux<ServerSentEvent<Object>> heartbeat = Flux.interval(statusPollerConfig.getEventHeartbeat())
+                .map(tick -> ServerSentEvent.builder().comment("heartbeat").build());
 
-                executionParameterRepo.save(parameter);
-            }
+        return Flux.merge(events, heartbeat)
+                .doOnSubscribe(subscription -> statusPoller.watch(address))
+                .doFinally(signal -> statusPoller.unwatch(address));
+    }
+
+    @Override
+    public StatusHistoryResponse getStatusHistory(String address, String range) {
+        Duration duration;
+        try {
+            duration = DurationStyle.detectAndParse(range);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Range should look like 30m, 6h or 7d", 4007);
+        }
+        if (duration.isNegative() || duration.isZero() || duration.compareTo(StatusHistory.MAX_RANGE) > 0) {
+            throw new BadRequestException("Range must be positive and at most " + StatusHistory.MAX_RANGE.toDays() + " days", 4007);
+        }
+
+        StatusHistoryResponse response = statusHistory.read(address, duration);
+        response.setRange(range);
+        return response;
+    }
+
+    @Override
+    public QueryStatsResponse getQueryStats() {
+        QueryStatsResponse response = new QueryStatsResponse();
+        response.setReplies(queryClient.getReplies());
+        response.setMultiPacketReplies(queryClient.getMultiPacketReplies());
+        response.setIncompleteReplies(queryClient.getIncompleteReplies());
+        response.setTruncatedSnapshots(statusPoller.getTruncatedSnapshots());
+        response.setLargestReplyBytes(queryClient.getLargestReply());
+        response.setPending(queryClient.getPendingCount());
+
+        return response;
+    }
+
+    @Override
+    public RconCacheStatsResponse getRconCacheStats() {
+        RconCacheStatsResponse response = new RconCacheStatsResponse();
+        response.setHits(rconCache.getHits());
+        response.setMisses(rconCache.getMisses());
+        response.setEvictions(rconCache.getEvictions());
+        response.setSize(rconCache.size());
+
+        return response;
+    }
+
+    private static RconOutputFormat formatOf(RconRequest request) {
+        return request.getFormat() == null ? RconOutputFormat.RAW : request.getFormat();
+    }
+
+    // runs on the transport's reader as the response completes, straight off the raw bytes
+    private static Function<RconResponseBuffer, CommonResponse> decoderFor(RconOutputFormat format) {
+        return switch (format) {
+            case RAW -> buffer -> new CommonResponse(buffer.toString());
+            case STRIP -> buffer -> new CommonResponse(buffer.toStrippedString());
+            case SPANS -> buffer -> new RconOutputResponse(buffer.toSpans());
+        };
+    }
+
+    private static String toCommandString(RconCommands commandEnum, RconRequest request) {
+        String command;
+        if (commandEnum == RconCommands.CUSTOM) {
+            assert request.getArguments().size() <= 1 : "The first argument should house the entire command";
+            command = request.getArguments().get(0);
+        } else {
+            command = commandEnum.format(request.getArguments().toArray());
+        }
+
+        // the codecs refuse anything bigger than the protocol allows, better to say so here than to drop the connection
+        if (command.length() > RconPacket.MAX_REQUEST_PAYLOAD) {
+            throw new BadRequestException("Command is longer than " + RconPacket.MAX_REQUEST_PAYLOAD + " characters", 4003);
+        }
+        return command;
+    }
+
+    private static Execution newExecution(RconCommands commandEnum, RconRequest request, LoggedInUser user) {
+        Execution execution = new Execution();
+        execution.setCommand(commandEnum);
+        execution.setUsername(user.getUsername());
+        execution.setParameterCount(request.getArguments().size());
+
+        for (String arg : request.getArguments()) {
+            ExecutionParameter parameter = new ExecutionParameter();
+            parameter.setParameterValue(arg);
+            parameter.setExecution(execution);
 
-            return new CommonResponse(res);
+            execution.getParameters().add(parameter);
         }
-        // IOException in case of errors will be thrown by internal methods
+        return execution;
     }
 
     private static RconCommands validateCommand(RconRequest request, LoggedInUser user) {
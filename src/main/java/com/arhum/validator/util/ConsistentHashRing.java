@@ -0,0 +1,72 @@
+package com.arhum.validator.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Consistent hashing of keys onto a set of members. Every member is put on the ring {@code virtualNodes} times, a key
+ * belongs to the first member at or after its own hash. Adding or removing a member only moves the keys that member
+ * takes or gives up, about 1/n of them, everything else stays where it is.
+ * <p>
+ * Immutable, {@link #with} and {@link #without} return a new ring.
+ */
+public final class ConsistentHashRing {
+
+    private final int virtualNodes;
+    private final Set<String> members;
+    private final TreeMap<Integer, String> ring = new TreeMap<>();
+
+    public ConsistentHashRing(Collection<String> members, int virtualNodes) {
+        if (members.isEmpty()) {
+            throw new IllegalArgumentException("A ring needs at least one member");
+        }
+        this.virtualNodes = virtualNodes;
+        this.members = Set.copyOf(new TreeSet<>(members));
+        for (String member : this.members) {
+            for (int i = 0; i < virtualNodes; i++) {
+                // two members landing on the same point is rare enough, the smaller name keeps it either way
+                ring.merge(hash(member + "#" + i), member, (a, b) -> a.compareTo(b) <= 0 ? a : b);
+            }
+        }
+    }
+
+    public String get(String key) {
+        Map.Entry<Integer, String> owner = ring.ceilingEntry(hash(key));
+        return owner != null ? owner.getValue() : ring.firstEntry().getValue();
+    }
+
+    public Set<String> members() {
+        return members;
+    }
+
+    public ConsistentHashRing with(String member) {
+        TreeSet<String> next = new TreeSet<>(members);
+        next.add(member);
+        return new ConsistentHashRing(next, virtualNodes);
+    }
+
+    public ConsistentHashRing without(String member) {
+        TreeSet<String> next = new TreeSet<>(members);
+        next.remove(member);
+        return new ConsistentHashRing(next, virtualNodes);
+    }
+
+    // fnv-1a with murmur3's finalizer on top, fnv alone clusters similar strings like 1.2.3.4/32 and 1.2.3.5/32
+    static int hash(String key) {
+        int h = 0x811C9DC5;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b;
+            h *= 0x01000193;
+        }
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        h ^= h >>> 16;
+        return h;
+    }
+}
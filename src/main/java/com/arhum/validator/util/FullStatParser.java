@@ -0,0 +1,188 @@
+package com.arhum.validator.util;
+
+import com.arhum.validator.model.response.MOTDResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Turns a GameSpy4 full stat reply into a {@link MOTDResponse} in one pass over the bytes:
+ * <pre>
+ * | type | session id (4) | "splitnum" 0x00 0x80 0x00 | key 0x00 value 0x00 ... 0x00 | 0x01 "player_" 0x00 0x00 | name 0x00 ... 0x00 |
+ * </pre>
+ * Keys are compared as bytes against the ones we know, nothing is decoded for keys or numbers. The only objects
+ * created are the Strings we keep (common values like "SMP" are shared constants), the player list and the
+ * response itself. Given the previous snapshot of the same server, values and player names that didn't change are
+ * taken over from it instead of decoded again, which for a poller means next to nothing is allocated.
+ * A reply cut short is parsed as far as it goes and comes out {@link MOTDResponse#isTruncated() truncated}: it ran out
+ * before the empty name that ends the player list, or its splitnum byte says more parts were coming.
+ */
+public class FullStatParser {
+
+    private static final byte[] SPLITNUM = ascii("splitnum\0");
+    private static final byte[] PLAYER_SECTION = ascii("\u0001player_\0\0");
+
+    private static final byte[] HOSTNAME = ascii("hostname");
+    private static final byte[] GAMETYPE = ascii("gametype");
+    private static final byte[] GAME_ID = ascii("game_id");
+    private static final byte[] VERSION = ascii("version");
+    private static final byte[] MAP = ascii("map");
+    private static final byte[] NUMPLAYERS = ascii("numplayers");
+    private static final byte[] MAXPLAYERS = ascii("maxplayers");
+    private static final byte[] HOSTPORT = ascii("hostport");
+
+    // values that are the same on nearly every server, handed out without decoding
+    private static final String[] COMMON_VALUES = {"", "SMP", "MINECRAFT", "world"};
+    private static final byte[][] COMMON_VALUE_BYTES = Arrays.stream(COMMON_VALUES).map(FullStatParser::ascii).toArray(byte[][]::new);
+
+    public static MOTDResponse parse(byte[] data, int length, long fetchedAt) {
+        return parse(data, length, fetchedAt, null);
+    }
+
+    /**
+     * @param previous the last snapshot of the same server, or null
+     */
+    public static MOTDResponse parse(byte[] data, int length, long fetchedAt, MOTDResponse previous) {
+        String hostname = "";
+        String gameType = "";
+        String gameId = "";
+        String version = "";
+        String map = "";
+        int numPlayers = 0;
+        int maxPlayers = 0;
+        int hostPort = 25565;
+
+        int cursor = 5; // type + session id
+        boolean lastPart = true;
+        if (startsWith(data, cursor, length, SPLITNUM)) {
+            cursor += SPLITNUM.length;
+            lastPart = cursor < length && (data[cursor] & 0x80) != 0; // packet index, 0x80 on the last one
+            cursor += 2;
+        }
+
+        // key/value pairs, an empty key ends them
+        while (cursor < length && data[cursor] != 0) {
+            int keyStart = cursor;
+            int keyEnd = indexOfNul(data, cursor, length);
+            int valueStart = keyEnd + 1;
+            int valueEnd = indexOfNul(data, valueStart, length);
+            if (valueEnd >= length) {
+                break; // truncated in the middle of a pair
+            }
+
+            int keyLength = keyEnd - keyStart;
+            int valueLength = valueEnd - valueStart;
+            switch (keyLength) {
+                case 3:
+                    if (matches(data, keyStart, keyLength, MAP)) map = string(data, valueStart, valueLength, previous == null ? null : previous.getMap());
+                    break;
+                case 7:
+                    if (matches(data, keyStart, keyLength, VERSION)) version = string(data, valueStart, valueLength, previous == null ? null : previous.getVersion());
+                    else if (matches(data, keyStart, keyLength, GAME_ID)) gameId = string(data, valueStart, valueLength, previous == null ? null : previous.getGameId());
+                    break;
+                case 8:
+                    if (matches(data, keyStart, keyLength, HOSTNAME)) hostname = string(data, valueStart, valueLength, previous == null ? null : previous.getHostname());
+                    else if (matches(data, keyStart, keyLength, GAMETYPE)) gameType = string(data, valueStart, valueLength, previous == null ? null : previous.getGameType());
+                    else if (matches(data, keyStart, keyLength, HOSTPORT)) hostPort = integer(data, valueStart, valueLength, 25565);
+                    break;
+                case 10:
+                    if (matches(data, keyStart, keyLength, NUMPLAYERS)) numPlayers = integer(data, valueStart, valueLength, 0);
+                    else if (matches(data, keyStart, keyLength, MAXPLAYERS)) maxPlayers = integer(data, valueStart, valueLength, 0);
+                    break;
+                default:
+                    break; // plugins, hostip and whatever mods add, we don't show them
+            }
+            cursor = valueEnd + 1;
+        }
+        cursor++; // the empty key
+
+        List<String> known = previous == null ? List.of() : previous.getPlayers();
+        List<String> players = new ArrayList<>(Math.min(numPlayers, 1024));
+        boolean ended = false;
+        if (startsWith(data, cursor, length, PLAYER_SECTION)) {
+            cursor += PLAYER_SECTION.length;
+            while (cursor < length) {
+                if (data[cursor] == 0) {
+                    ended = true; // the empty name, not the end of the data
+                    break;
+                }
+                int end = indexOfNul(data, cursor, length);
+                if (end >= length) {
+                    break; // a name cut in half is no name
+                }
+                // the server keeps its player list in join order, so the same index is where the same name usually is
+                int index = players.size();
+                String same = index < known.size() && sameAscii(known.get(index), data, cursor, end - cursor) ? known.get(index) : null;
+                players.add(same != null ? same : new String(data, cursor, end - cursor, StandardCharsets.UTF_8));
+                cursor = end + 1;
+            }
+        }
+
+        return new MOTDResponse(hostname, numPlayers, players, gameType, maxPlayers, hostPort, version, map, gameId,
+                fetchedAt, !(lastPart && ended));
+    }
+
+    private static int indexOfNul(byte[] data, int from, int length) {
+        int i = from;
+        while (i < length && data[i] != 0) {
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean startsWith(byte[] data, int from, int length, byte[] prefix) {
+        return from + prefix.length <= length && Arrays.equals(data, from, from + prefix.length, prefix, 0, prefix.length);
+    }
+
+    private static boolean matches(byte[] data, int from, int length, byte[] key) {
+        return Arrays.equals(data, from, from + length, key, 0, key.length);
+    }
+
+    private static String string(byte[] data, int from, int length, String previous) {
+        for (int i = 0; i < COMMON_VALUES.length; i++) {
+            if (matches(data, from, length, COMMON_VALUE_BYTES[i])) {
+                return COMMON_VALUES[i];
+            }
+        }
+        if (sameAscii(previous, data, from, length)) {
+            return previous;
+        }
+        return new String(data, from, length, StandardCharsets.UTF_8);
+    }
+
+    // true if the bytes are exactly this (ascii only) string. anything else is decoded again, which is always right
+    private static boolean sameAscii(String value, byte[] data, int from, int length) {
+        if (value == null || value.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            byte b = data[from + i];
+            if (b < 0 || value.charAt(i) != b) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // plain decimal, anything else gives the fallback instead of an exception
+    private static int integer(byte[] data, int from, int length, int fallback) {
+        if (length == 0 || length > 9) {
+            return fallback;
+        }
+        int value = 0;
+        for (int i = from; i < from + length; i++) {
+            int digit = data[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return fallback;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.ISO_8859_1);
+    }
+}
@@ -0,0 +1,134 @@
+package com.arhum.validator.util;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * A set of IPv4 CIDRs as sorted, disjoint, merged intervals in two primitive arrays. Containment is a binary search
+ * over at most a few thousand intervals (the most a firewall rule holds), so at most a dozen or so comparisons, and
+ * any CIDR is matched, not just exact /32 strings. Immutable, a changed rule gets a new set.
+ * <p>
+ * Entries that aren't IPv4 CIDRs (IPv6 ranges, typos made in the console) are skipped and counted.
+ */
+public final class Ipv4RangeSet {
+
+    // inclusive, unsigned addresses widened to long so the comparisons stay simple
+    private final long[] starts;
+    private final long[] ends;
+    private final int skipped;
+
+    private Ipv4RangeSet(long[] starts, long[] ends, int skipped) {
+        this.starts = starts;
+        this.ends = ends;
+        this.skipped = skipped;
+    }
+
+    public static Ipv4RangeSet of(Collection<String> cidrs) {
+        long[][] ranges = new long[cidrs.size()][];
+        int n = 0;
+        int skipped = 0;
+        for (String cidr : cidrs) {
+            long[] range = parse(cidr);
+            if (range == null) {
+                skipped++;
+            } else {
+                ranges[n++] = range;
+            }
+        }
+        Arrays.sort(ranges, 0, n, (a, b) -> Long.compare(a[0], b[0]));
+
+        long[] starts = new long[n];
+        long[] ends = new long[n];
+        int size = 0;
+        for (int i = 0; i < n; i++) {
+            if (size > 0 && ranges[i][0] <= ends[size - 1] + 1) {
+                ends[size - 1] = Math.max(ends[size - 1], ranges[i][1]); // overlapping or touching, merge
+            } else {
+                starts[size] = ranges[i][0];
+                ends[size] = ranges[i][1];
+                size++;
+            }
+        }
+        return new Ipv4RangeSet(Arrays.copyOf(starts, size), Arrays.copyOf(ends, size), skipped);
+    }
+
+    /**
+     * Whether every address of {@code cidr} is in the set. Unparseable input is never contained.
+     */
+    public boolean contains(String cidr) {
+        long[] range = parse(cidr);
+        if (range == null) {
+            return false;
+        }
+        // last interval starting at or before the range, intervals are disjoint so it's the only candidate
+        int i = Arrays.binarySearch(starts, range[0]);
+        if (i < 0) {
+            i = -i - 2;
+        }
+        return i >= 0 && ends[i] >= range[1];
+    }
+
+    public int intervals() {
+        return starts.length;
+    }
+
+    public int skipped() {
+        return skipped;
+    }
+
+    // [first, last] address of "a.b.c.d" or "a.b.c.d/n", null if it isn't one
+    static long[] parse(String cidr) {
+        if (cidr == null) {
+            return null;
+        }
+        int slash = cidr.indexOf('/');
+        int prefix = 32;
+        if (slash >= 0) {
+            // digits only, parseInt would also take "+8"
+            int digits = cidr.length() - slash - 1;
+            if (digits < 1 || digits > 2) {
+                return null;
+            }
+            prefix = 0;
+            for (int i = slash + 1; i < cidr.length(); i++) {
+                char c = cidr.charAt(i);
+                if (c < '0' || c > '9') {
+                    return null;
+                }
+                prefix = prefix * 10 + (c - '0');
+            }
+            if (prefix > 32) {
+                return null;
+            }
+        }
+
+        String address = slash >= 0 ? cidr.substring(0, slash) : cidr;
+        long value = 0;
+        int octets = 0;
+        int octet = -1;
+        for (int i = 0; i <= address.length(); i++) {
+            char c = i < address.length() ? address.charAt(i) : '.';
+            if (c == '.') {
+                if (octet < 0 || ++octets > 4) {
+                    return null;
+                }
+                value = (value << 8) | octet;
+                octet = -1;
+            } else if (c >= '0' && c <= '9') {
+                octet = (octet < 0 ? 0 : octet * 10) + (c - '0');
+                if (octet > 255) {
+                    return null;
+                }
+            } else {
+                return null;
+            }
+        }
+        if (octets != 4) {
+            return null;
+        }
+
+        long size = 1L << (32 - prefix);
+        long first = value & ~(size - 1) & 0xFFFFFFFFL; // host bits of e.g. 10.0.0.5/8 are dropped
+        return new long[]{first, first + size - 1};
+    }
+}
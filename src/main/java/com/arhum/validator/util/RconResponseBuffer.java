@@ -0,0 +1,181 @@
+package com.arhum.validator.util;
+
+import com.arhum.validator.model.rcon.RconPacket;
+import com.arhum.validator.model.response.RconTextSpan;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Collects the raw bytes of a (possibly fragmented) RCON response and turns them into a String once, at the end.
+ * <p>
+ * ISO-8859-1 maps each byte to exactly one char, so there is nothing to decode per fragment. Keeping bytes and
+ * building the String in one go means a bulk copy per fragment and a single allocation per response, instead of a
+ * String per fragment plus a char by char append into a StringBuilder.
+ */
+public class RconResponseBuffer {
+
+    // §, starts a two byte formatting code
+    private static final byte SECTION_SIGN = (byte) 0xA7;
+
+    // index is the hex digit of the colour code
+    private static final String[] COLORS = {
+            "black", "dark_blue", "dark_green", "dark_aqua", "dark_red", "dark_purple", "gold", "gray",
+            "dark_gray", "blue", "green", "aqua", "red", "light_purple", "yellow", "white"
+    };
+
+    private byte[] bytes;
+    private int length;
+
+    public RconResponseBuffer() {
+        this(256);
+    }
+
+    public RconResponseBuffer(int initialCapacity) {
+        this.bytes = new byte[initialCapacity];
+    }
+
+    public void append(byte[] source, int offset, int count) {
+        ensureCapacity(length + count);
+        System.arraycopy(source, offset, bytes, length, count);
+        length += count;
+    }
+
+    public void append(byte b) {
+        ensureCapacity(length + 1);
+        bytes[length++] = b;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    public void reset() {
+        length = 0;
+    }
+
+    @Override
+    public String toString() {
+        return new String(bytes, 0, length, RconPacket.CHARSET);
+    }
+
+    /**
+     * The text with every formatting code removed. The codes are squeezed out of the buffer in place, so this is
+     * one pass over the bytes plus the copy into the String, no intermediate String to run a regex over.
+     * The buffer holds the stripped bytes afterwards.
+     */
+    public String toStrippedString() {
+        stripFormatting(false);
+        return toString();
+    }
+
+    /**
+     * Removes every section sign and the code byte after it, in place.
+     * <p>
+     * When output is handled fragment by fragment, a code can be split with the section sign ending one fragment and
+     * the code byte starting the next. This returns true in that case, pass it back as {@code skipFirstByte} for the
+     * next fragment.
+     */
+    public boolean stripFormatting(boolean skipFirstByte) {
+        int read = skipFirstByte && length > 0 ? 1 : 0;
+        int write = 0;
+
+        while (read < length) {
+            byte b = bytes[read++];
+            if (b == SECTION_SIGN) {
+                if (read == length) {
+                    length = write;
+                    return true;
+                }
+                read++; // the code itself
+                continue;
+            }
+            bytes[write++] = b;
+        }
+
+        length = write;
+        return skipFirstByte && read == 0; // an empty fragment after a dangling sign still owes us the code byte
+    }
+
+    /**
+     * Splits the text at its formatting codes into spans that carry their colour and style, in one pass over the
+     * bytes. Follows the java edition rules: a colour code also resets the styles, {@code §r} resets everything.
+     */
+    public List<RconTextSpan> toSpans() {
+        List<RconTextSpan> spans = new ArrayList<>();
+        Style style = new Style();
+        int start = 0;
+
+        for (int i = 0; i < length; i++) {
+            if (bytes[i] != SECTION_SIGN) {
+                continue;
+            }
+            if (i > start) {
+                spans.add(style.span(new String(bytes, start, i - start, RconPacket.CHARSET)));
+            }
+            if (i + 1 < length) {
+                style.apply((char) (bytes[i + 1] & 0xFF));
+            }
+            i++; // skip the code byte
+            start = i + 1;
+        }
+        if (start < length) {
+            spans.add(style.span(new String(bytes, start, length - start, RconPacket.CHARSET)));
+        }
+        return spans;
+    }
+
+    private static final class Style {
+        private String color;
+        private boolean bold;
+        private boolean italic;
+        private boolean underlined;
+        private boolean strikethrough;
+        private boolean obfuscated;
+
+        private void apply(char code) {
+            int colorIndex = Character.digit(code, 16);
+            if (colorIndex >= 0) {
+                reset();
+                color = COLORS[colorIndex];
+                return;
+            }
+
+            switch (Character.toLowerCase(code)) {
+                case 'k' -> obfuscated = true;
+                case 'l' -> bold = true;
+                case 'm' -> strikethrough = true;
+                case 'n' -> underlined = true;
+                case 'o' -> italic = true;
+                case 'r' -> {
+                    reset();
+                    color = null;
+                }
+                default -> { } // unknown code, dropped like the client would
+            }
+        }
+
+        private void reset() {
+            bold = italic = underlined = strikethrough = obfuscated = false;
+        }
+
+        private RconTextSpan span(String text) {
+            RconTextSpan span = new RconTextSpan();
+            span.setText(text);
+            span.setColor(color);
+            span.setBold(bold);
+            span.setItalic(italic);
+            span.setUnderlined(underlined);
+            span.setStrikethrough(strikethrough);
+            span.setObfuscated(obfuscated);
+            return span;
+        }
+    }
+
+    private void ensureCapacity(int needed) {
+        if (needed > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(needed, bytes.length * 2));
+        }
+    }
+}
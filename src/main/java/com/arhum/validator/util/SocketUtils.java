@@ -1,27 +1,40 @@
 package com.arhum.validator.util;
 
+import com.arhum.validator.model.response.MOTDResponse;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.net.DatagramPacket;
 import java.net.DatagramSocket;
 import java.net.InetSocketAddress;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
-import java.util.Arrays;
-import java.util.HashMap;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
 
 public class SocketUtils {
     private static final Logger logger = LoggerFactory.getLogger(SocketUtils.class);
 
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    // what the handshake says when we don't know (or care about) the server's version
+    private static final int ANY_PROTOCOL_VERSION = -1;
+
     public static byte[] createHandshakePacket() {
         return new byte[]{(byte) 0xFE, (byte) 0xFD, 0x09, 0x01, 0x01, 0x01, 0x01};
     }
 
+    /**
+     * Same, with our own session id. The server echoes it in bytes 1-4 of the reply, masked with 0x0F0F0F0F.
+     */
+    public static byte[] createHandshakePacket(int sessionId) {
+        return ByteBuffer.allocate(7).put((byte) 0xFE).put((byte) 0xFD).put((byte) 0x09).putInt(sessionId).array();
+    }
+
     public static int extractSessionId(byte[] responseData) {
         int start = 5; // First 5 bytes are fixed headers
         int end = start;
@@ -44,29 +57,103 @@ public class SocketUtils {
         return buffer.array();
     }
 
-    public static Map<String, Object> parseFullQueryResponse(byte[] responseData) {
-        Map<String, Object> serverInfo = new HashMap<>();
-        int cursor = 11; // Skip the first 11 bytes
+    public static byte[] createFullQueryPacket(int sessionId, int challengeToken) {
+        ByteBuffer buffer = ByteBuffer.allocate(15);
+        buffer.put((byte) 0xFE).put((byte) 0xFD).put((byte) 0x00).putInt(sessionId); // Header
+        buffer.putInt(challengeToken);
+        buffer.putInt(0); // Padding
 
-        String responseString = new String(responseData, cursor, responseData.length - cursor, StandardCharsets.UTF_8);
-        logger.info("Raw response (excluding first 11 bytes): {}", responseString);
+        return buffer.array();
+    }
+
+    /**
+     * Server List Ping, what the multiplayer screen uses over TCP on the game port. Works whether enable-query is on
+     * or not. The handshake (next state 1, status) and the status request in one buffer, each packet framed as
+     * {@code varint length | varint packet id | fields}.
+     */
+    public static byte[] createStatusRequestPacket(String host, int port) {
+        ByteArrayOutputStream handshake = new ByteArrayOutputStream(32 + host.length());
+        writeVarInt(handshake, 0x00); // packet id
+        writeVarInt(handshake, ANY_PROTOCOL_VERSION);
+        byte[] hostBytes = host.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(handshake, hostBytes.length);
+        handshake.writeBytes(hostBytes);
+        handshake.write(port >>> 8); // unsigned short, big endian
+        handshake.write(port & 0xFF);
+        writeVarInt(handshake, 1); // next state: status
+
+        ByteArrayOutputStream packets = new ByteArrayOutputStream(handshake.size() + 8);
+        writeVarInt(packets, handshake.size());
+        packets.writeBytes(handshake.toByteArray());
+        writeVarInt(packets, 1); // status request, just its packet id
+        writeVarInt(packets, 0x00);
+        return packets.toByteArray();
+    }
 
-        String[] sections = responseString.split("\u0000\u0001player_\u0000\u0000");
-        if (sections.length < 2) {
-            return serverInfo;
+    /**
+     * Turns the status response (one frame, length prefix already stripped) into the same {@link MOTDResponse} the
+     * query gives. The server only sends a sample of its players (12 on vanilla, none with hide-online-players),
+     * so the snapshot is marked truncated whenever the sample is shorter than the online count.
+     */
+    public static MOTDResponse parseStatusResponse(byte[] frame, int port, long fetchedAt) throws IOException {
+        int[] cursor = {0};
+        int packetId = readVarInt(frame, cursor);
+        if (packetId != 0x00) {
+            throw new IOException("Unexpected server list ping packet " + packetId);
+        }
+        int length = readVarInt(frame, cursor);
+        if (length < 0 || cursor[0] + length > frame.length) {
+            throw new IOException("Malformed server list ping response");
         }
+        JsonNode status = objectMapper.readTree(new String(frame, cursor[0], length, StandardCharsets.UTF_8));
 
-        String[] keyValuePairs = sections[0].split("\u0000");
-        for (int i = 0; i < keyValuePairs.length - 1; i += 2) {
-            serverInfo.put(keyValuePairs[i], keyValuePairs[i + 1]);
+        JsonNode players = status.path("players");
+        List<String> sample = new ArrayList<>();
+        for (JsonNode player : players.path("sample")) {
+            sample.add(player.path("name").asText());
         }
+        int online = players.path("online").asInt();
+
+        StringBuilder motd = new StringBuilder();
+        appendText(status.path("description"), motd);
 
-        String[] players = sections[1].split("\u0000");
-        List<String> playerList = Arrays.stream(players).filter(p -> !p.isEmpty()).collect(Collectors.toList());
+        return new MOTDResponse(motd.toString(), online, sample, "", players.path("max").asInt(), port,
+                status.path("version").path("name").asText(""), "", "", fetchedAt, sample.size() < online);
+    }
+
+    // the description is either a plain string or a chat component with text and nested extra parts
+    private static void appendText(JsonNode component, StringBuilder out) {
+        if (component.isTextual()) {
+            out.append(component.asText());
+        } else if (component.isArray()) {
+            component.forEach(part -> appendText(part, out));
+        } else if (component.isObject()) {
+            out.append(component.path("text").asText(""));
+            appendText(component.path("extra"), out);
+        }
+    }
 
-        serverInfo.put("players", playerList);
+    private static void writeVarInt(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
 
-        return serverInfo;
+    private static int readVarInt(byte[] data, int[] cursor) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            if (cursor[0] >= data.length) {
+                throw new IOException("Malformed server list ping response");
+            }
+            byte b = data[cursor[0]++];
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IOException("VarInt too long");
     }
 
     /**
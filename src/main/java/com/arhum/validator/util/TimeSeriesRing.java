@@ -0,0 +1,183 @@
+package com.arhum.validator.util;
+
+import com.arhum.validator.model.response.HistoryPointResponse;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Status samples of one server at one resolution, in a fixed number of slots that are reused round robin. Slot i
+ * holds the bucket (time / resolution) it was last written for, a sample for a newer bucket that lands on the same
+ * slot clears it first. So the ring always covers the last {@code capacity * resolution} and never grows.
+ * <p>
+ * Everything is kept as running aggregates in primitive arrays (count, sum, min, max), which is also what makes
+ * reading a coarser view cheap: neighbouring slots are simply merged. Synchronized, writes come from the poller and
+ * reads from requests and checkpoints.
+ */
+public class TimeSeriesRing {
+
+    private static final int FORMAT = 1;
+
+    private final long resolutionMillis;
+    private final int capacity;
+
+    private final long[] buckets;
+    private final int[] samples;
+    private final int[] offline;
+    private final long[] playersSum;
+    private final int[] playersMin;
+    private final int[] playersMax;
+    private final long[] latencySum;
+    private final int[] latencyMax;
+
+    public TimeSeriesRing(Duration resolution, int capacity) {
+        this.resolutionMillis = resolution.toMillis();
+        this.capacity = capacity;
+        this.buckets = new long[capacity];
+        this.samples = new int[capacity];
+        this.offline = new int[capacity];
+        this.playersSum = new long[capacity];
+        this.playersMin = new int[capacity];
+        this.playersMax = new int[capacity];
+        this.latencySum = new long[capacity];
+        this.latencyMax = new int[capacity];
+        Arrays.fill(buckets, -1);
+    }
+
+    public long getResolutionMillis() {
+        return resolutionMillis;
+    }
+
+    /**
+     * One poll. An offline sample only counts as offline, players and latency are left alone.
+     */
+    public synchronized void record(long at, boolean online, int players, int latencyMillis) {
+        long bucket = at / resolutionMillis;
+        int slot = (int) (bucket % capacity);
+        if (buckets[slot] != bucket) {
+            if (buckets[slot] > bucket) {
+                return; // older than what the slot holds now, the ring has moved past it
+            }
+            clear(slot);
+            buckets[slot] = bucket;
+        }
+
+        if (!online) {
+            offline[slot]++;
+            return;
+        }
+        samples[slot]++;
+        playersSum[slot] += players;
+        playersMin[slot] = Math.min(playersMin[slot], players);
+        playersMax[slot] = Math.max(playersMax[slot], players);
+        latencySum[slot] += latencyMillis;
+        latencyMax[slot] = Math.max(latencyMax[slot], latencyMillis);
+    }
+
+    /**
+     * The slots between {@code from} and {@code to}, merged into at most {@code maxPoints} points of equal width.
+     * Stretches without any sample are left out rather than returned as zeros.
+     */
+    public synchronized List<HistoryPointResponse> read(long from, long to, int maxPoints) {
+        long first = firstBucket(from, to);
+        long last = to / resolutionMillis;
+        if (last < first) {
+            return List.of();
+        }
+        long perPoint = slotsPerPoint(from, to, maxPoints);
+
+        List<HistoryPointResponse> points = new ArrayList<>();
+        for (long start = first; start <= last; start += perPoint) {
+            int n = 0;
+            int down = 0;
+            long players = 0;
+            int min = Integer.MAX_VALUE;
+            int max = 0;
+            long latency = 0;
+            int latencyPeak = 0;
+
+            for (long bucket = start; bucket < start + perPoint && bucket <= last; bucket++) {
+                int slot = (int) (bucket % capacity);
+                if (buckets[slot] != bucket) {
+                    continue;
+                }
+                n += samples[slot];
+                down += offline[slot];
+                players += playersSum[slot];
+                min = Math.min(min, playersMin[slot]);
+                max = Math.max(max, playersMax[slot]);
+                latency += latencySum[slot];
+                latencyPeak = Math.max(latencyPeak, latencyMax[slot]);
+            }
+
+            if (n + down > 0) {
+                points.add(new HistoryPointResponse(start * resolutionMillis, n, down,
+                        n == 0 ? 0 : (double) players / n, n == 0 ? 0 : min, max,
+                        n == 0 ? 0 : (double) latency / n, latencyPeak));
+            }
+        }
+        return points;
+    }
+
+    /**
+     * Width of the points {@link #read} returns for the same arguments.
+     */
+    public long stepMillis(long from, long to, int maxPoints) {
+        return resolutionMillis * slotsPerPoint(from, to, maxPoints);
+    }
+
+    private long firstBucket(long from, long to) {
+        return Math.max(from / resolutionMillis, to / resolutionMillis - capacity + 1);
+    }
+
+    private long slotsPerPoint(long from, long to, int maxPoints) {
+        long count = to / resolutionMillis - firstBucket(from, to) + 1;
+        return Math.max(1, (count + maxPoints - 1) / maxPoints);
+    }
+
+    public synchronized byte[] toBytes() {
+        ByteBuffer out = ByteBuffer.allocate(16 + capacity * 44);
+        out.putInt(FORMAT).putLong(resolutionMillis).putInt(capacity);
+        for (int i = 0; i < capacity; i++) {
+            out.putLong(buckets[i]).putInt(samples[i]).putInt(offline[i])
+                    .putLong(playersSum[i]).putInt(playersMin[i]).putInt(playersMax[i])
+                    .putLong(latencySum[i]).putInt(latencyMax[i]);
+        }
+        return out.array();
+    }
+
+    /**
+     * Takes over a checkpoint written by {@link #toBytes()}. Returns false, and changes nothing, if it was written
+     * for another resolution or size.
+     */
+    public synchronized boolean load(byte[] data) {
+        ByteBuffer in = ByteBuffer.wrap(data);
+        if (data.length != 16 + capacity * 44 || in.getInt() != FORMAT || in.getLong() != resolutionMillis || in.getInt() != capacity) {
+            return false;
+        }
+        for (int i = 0; i < capacity; i++) {
+            buckets[i] = in.getLong();
+            samples[i] = in.getInt();
+            offline[i] = in.getInt();
+            playersSum[i] = in.getLong();
+            playersMin[i] = in.getInt();
+            playersMax[i] = in.getInt();
+            latencySum[i] = in.getLong();
+            latencyMax[i] = in.getInt();
+        }
+        return true;
+    }
+
+    private void clear(int slot) {
+        samples[slot] = 0;
+        offline[slot] = 0;
+        playersSum[slot] = 0;
+        playersMin[slot] = Integer.MAX_VALUE;
+        playersMax[slot] = 0;
+        latencySum[slot] = 0;
+        latencyMax[slot] = 0;
+    }
+}
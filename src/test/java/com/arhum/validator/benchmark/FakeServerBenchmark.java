@@ -0,0 +1,69 @@
+package com.arhum.validator.benchmark;
+
+import com.arhum.validator.config.rcon.NettyRconClient;
+import com.arhum.validator.config.rcon.RconNettyConfig;
+import com.arhum.validator.config.rcon.RconTransport;
+import com.arhum.validator.fake.FakeMinecraftServer;
+import com.arhum.validator.fake.FakeServerSettings;
+import com.arhum.validator.model.response.MOTDResponse;
+import com.arhum.validator.config.query.ServerStatusPoller;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End to end round trips against {@link FakeMinecraftServer} on localhost: rcon with a short and a
+ * fragmented (> 4096 bytes) response, and the udp full stat behind /server-info. Sample time mode prints p50, p99
+ * and p99.9 next to the average; run with {@code -bm thrpt} for plain throughput.
+ * <p>
+ * The fake answers instantly, so this is our own overhead plus loopback. {@link FakeServerLoadTest} is the one to
+ * use for latency and packet loss.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class FakeServerBenchmark {
+
+    @Param({"20", "500"})
+    private int players;
+
+    private FakeMinecraftServer server;
+    private RconTransport rcon;
+    private ServerStatusPoller query;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        FakeServerSettings settings = new FakeServerSettings();
+        settings.setPlayers(players);
+        settings.setMaxPlayers(Math.max(20, players));
+        server = new FakeMinecraftServer(settings);
+
+        rcon = new NettyRconClient(new RconNettyConfig(), settings.getRconPassword());
+        query = FakeServerLoadTest.statusPoller(server, false);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        server.close();
+    }
+
+    @Benchmark
+    public String rconList() {
+        return rcon.execute(server.getHost(), server.getRconPort(), "list").block();
+    }
+
+    @Benchmark
+    public String rconFragmented() {
+        return rcon.execute(server.getHost(), server.getRconPort(), "bytes 10000").block();
+    }
+
+    @Benchmark
+    public MOTDResponse queryFullStat() throws IOException {
+        return query.getSnapshot(server.getHost());
+    }
+}
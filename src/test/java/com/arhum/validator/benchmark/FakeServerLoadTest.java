@@ -0,0 +1,196 @@
+package com.arhum.validator.benchmark;
+
+import com.arhum.validator.config.circuit.CircuitBreakerConfig;
+import com.arhum.validator.config.circuit.ServerCircuitBreaker;
+import com.arhum.validator.config.query.PlayerEventHub;
+import com.arhum.validator.config.query.QueryClient;
+import com.arhum.validator.config.query.QueryConfig;
+import com.arhum.validator.config.query.ServerListPingClient;
+import com.arhum.validator.config.query.ServerListPingConfig;
+import com.arhum.validator.config.query.ServerStatusPoller;
+import com.arhum.validator.config.query.StatusHistory;
+import com.arhum.validator.config.query.StatusHistoryConfig;
+import com.arhum.validator.config.query.StatusPollerConfig;
+import com.arhum.validator.config.rcon.NettyRconClient;
+import com.arhum.validator.config.rcon.RconNettyConfig;
+import com.arhum.validator.config.rcon.RconTransport;
+import com.arhum.validator.fake.FakeMinecraftServer;
+import com.arhum.validator.fake.FakeServerSettings;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed loop load against {@link FakeMinecraftServer}: N callers fire one request after the other for a fixed time,
+ * then throughput and latency percentiles are printed. Not a junit test, it's meant to be run by hand:
+ * <pre>
+ * java -cp ... com.arhum.validator.benchmark.FakeServerLoadTest [target] [callers] [seconds] [latencyMs] [players] [command]
+ * </pre>
+ * target is {@code netty} (an rcon command per call), {@code query} (a udp full stat per call) or
+ * {@code server-info} (what the endpoint does, the poller's snapshot). Defaults: netty 16 10 0 20 list.
+ * For udp packet loss set {@code -Dfake.loss=0.05}, lost replies show up as errors after the client's 2s timeout.
+ */
+public class FakeServerLoadTest {
+
+    public static void main(String[] args) throws Exception {
+        String target = arg(args, 0, "netty");
+        int callers = Integer.parseInt(arg(args, 1, "16"));
+        int seconds = Integer.parseInt(arg(args, 2, "10"));
+        int latencyMs = Integer.parseInt(arg(args, 3, "0"));
+        int players = Integer.parseInt(arg(args, 4, "20"));
+        String command = arg(args, 5, "list");
+
+        FakeServerSettings settings = new FakeServerSettings();
+        settings.setLatency(Duration.ofMillis(latencyMs));
+        settings.setPlayers(players);
+        settings.setMaxPlayers(Math.max(20, players));
+        settings.setPacketLoss(Double.parseDouble(System.getProperty("fake.loss", "0")));
+
+        try (FakeMinecraftServer server = new FakeMinecraftServer(settings)) {
+            Operation operation = operationFor(target, server, command);
+
+            // warm up for a bit so connections exist and the jit had a look, then measure
+            run(operation, callers, Math.min(3, seconds));
+            Result result = run(operation, callers, seconds);
+
+            System.out.printf("%s x%d, %ds, latency %dms, %d players, command '%s'%n",
+                    target, callers, seconds, latencyMs, players, target.startsWith("query") || target.startsWith("server") ? "full stat" : command);
+            result.print();
+        }
+        System.exit(0); // netty's event loop threads would otherwise keep us around
+    }
+
+    /**
+     * One request against the fake, blocking until it is answered.
+     */
+    interface Operation {
+        void call() throws Exception;
+    }
+
+    static Operation operationFor(String target, FakeMinecraftServer server, String command) throws Exception {
+        String host = server.getHost();
+        int port = server.getRconPort();
+        String password = server.getSettings().getRconPassword();
+
+        switch (target) {
+            case "netty": {
+                RconTransport transport = new NettyRconClient(new RconNettyConfig(), password);
+                return () -> transport.execute(host, port, command).block();
+            }
+            case "query": {
+                ServerStatusPoller poller = statusPoller(server, false);
+                return () -> poller.getSnapshot(host);
+            }
+            case "server-info": {
+                ServerStatusPoller poller = statusPoller(server, true);
+                return () -> poller.getSnapshot(host);
+            }
+            default:
+                throw new IllegalArgumentException("unknown target " + target + ", expected netty, query or server-info");
+        }
+    }
+
+    /**
+     * The poller the way /server-info uses it, without spring. Disabled it queries the server on every call.
+     * Nothing runs the scheduled polls here, a run shorter than maxAge is served from the first snapshot.
+     */
+    static ServerStatusPoller statusPoller(FakeMinecraftServer server, boolean enabled) throws IOException {
+        StatusPollerConfig config = new StatusPollerConfig();
+        config.setEnabled(enabled);
+        config.setHost(server.getHost()); // only configured servers are polled
+
+        // a load test should see every failure, not a breaker failing fast after the first three
+        CircuitBreakerConfig breaker = new CircuitBreakerConfig();
+        breaker.setFailureThreshold(Integer.MAX_VALUE);
+
+        // the fake answers the ping on a port of its own
+        ServerListPingConfig ping = new ServerListPingConfig();
+        ping.setPort(server.getPingPort());
+
+        ServerStatusPoller poller = new ServerStatusPoller(config, new QueryClient(new QueryConfig()), new ServerListPingClient(ping), ping,
+                new ServerCircuitBreaker(breaker), new PlayerEventHub(), noHistory(), server.getQueryPort());
+        poller.init();
+        return poller;
+    }
+
+    // history needs postgres, which a load test doesn't have
+    static StatusHistory noHistory() {
+        StatusHistoryConfig config = new StatusHistoryConfig();
+        config.setEnabled(false);
+        return new StatusHistory(config, null);
+    }
+
+    static Result run(Operation operation, int callers, int seconds) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(seconds).toNanos();
+        CountDownLatch done = new CountDownLatch(callers);
+        AtomicLong errors = new AtomicLong();
+        List<long[]> samples = new ArrayList<>();
+        int[] counts = new int[callers];
+
+        for (int i = 0; i < callers; i++) {
+            long[] latencies = new long[1 << 16];
+            samples.add(latencies);
+            int caller = i;
+
+            Thread thread = new Thread(() -> {
+                long[] own = latencies;
+                int n = 0;
+                while (System.nanoTime() < deadline) {
+                    long start = System.nanoTime();
+                    try {
+                        operation.call();
+                    } catch (Exception e) {
+                        errors.incrementAndGet();
+                        continue; // a timeout would only skew the percentiles, it is counted instead
+                    }
+                    if (n == own.length) {
+                        own = Arrays.copyOf(own, n * 2);
+                        samples.set(caller, own);
+                    }
+                    own[n++] = System.nanoTime() - start;
+                }
+                counts[caller] = n;
+                done.countDown();
+            }, "load-" + i);
+            thread.setDaemon(true);
+            thread.start();
+        }
+        done.await();
+
+        int total = Arrays.stream(counts).sum();
+        long[] all = new long[total];
+        int position = 0;
+        for (int i = 0; i < callers; i++) {
+            System.arraycopy(samples.get(i), 0, all, position, counts[i]);
+            position += counts[i];
+        }
+        Arrays.sort(all);
+        return new Result(all, errors.get(), seconds);
+    }
+
+    record Result(long[] sorted, long errors, int seconds) {
+
+        void print() {
+            System.out.printf("  ok %d, errors %d, %.1f ops/s%n", sorted.length, errors, (double) sorted.length / seconds);
+            if (sorted.length == 0) {
+                return;
+            }
+            System.out.printf("  p50 %.3fms  p99 %.3fms  p99.9 %.3fms  max %.3fms%n",
+                    millis(0.50), millis(0.99), millis(0.999), sorted[sorted.length - 1] / 1e6);
+        }
+
+        private double millis(double percentile) {
+            int index = (int) Math.ceil(percentile * sorted.length) - 1;
+            return sorted[Math.max(0, index)] / 1e6;
+        }
+    }
+
+    private static String arg(String[] args, int index, String fallback) {
+        return args.length > index ? args[index] : fallback;
+    }
+}
@@ -0,0 +1,110 @@
+package com.arhum.validator.benchmark;
+
+import com.arhum.validator.fake.FakeMinecraftServer;
+import com.arhum.validator.fake.FakeServerSettings;
+import com.arhum.validator.model.response.MOTDResponse;
+import com.arhum.validator.util.FullStatParser;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * {@link FullStatParser} against the String/split/HashMap parsing SocketUtils and MOTDResponse did before it
+ * (copied below as {@link Legacy}, minus the INFO log of the whole reply it also did every time).
+ * Run with {@code -prof gc} to see the allocation rate next to the throughput.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FullStatParserBenchmark {
+
+    @Param({"0", "20", "500"})
+    private int players;
+
+    private byte[] reply;
+    private MOTDResponse previous;
+
+    @Setup
+    public void setup() {
+        FakeServerSettings settings = new FakeServerSettings();
+        settings.setMotd("A Minecraft Server - come and play");
+
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < players; i++) {
+            names.add(String.format("Player_%05d", i));
+        }
+        settings.setPlayers(players);
+        reply = FakeMinecraftServer.fullStatReply(settings, names, 0x01010101);
+        previous = FullStatParser.parse(reply, reply.length, 0);
+    }
+
+    @Benchmark
+    public MOTDResponse legacy() {
+        return Legacy.toResponse(Legacy.parseFullQueryResponse(reply));
+    }
+
+    @Benchmark
+    public MOTDResponse parser() {
+        return FullStatParser.parse(reply, reply.length, 0);
+    }
+
+    // what the poller does, the server's last snapshot at hand and nobody joined or left since
+    @Benchmark
+    public MOTDResponse parserWithPrevious() {
+        return FullStatParser.parse(reply, reply.length, 0, previous);
+    }
+
+    static class Legacy {
+
+        static Map<String, Object> parseFullQueryResponse(byte[] responseData) {
+            Map<String, Object> serverInfo = new HashMap<>();
+            int cursor = 11; // Skip the first 11 bytes
+
+            String responseString = new String(responseData, cursor, responseData.length - cursor, StandardCharsets.UTF_8);
+
+            String[] sections = responseString.split("\u0000\u0001player_\u0000\u0000");
+            if (sections.length < 2) {
+                return serverInfo;
+            }
+
+            String[] keyValuePairs = sections[0].split("\u0000");
+            for (int i = 0; i < keyValuePairs.length - 1; i += 2) {
+                serverInfo.put(keyValuePairs[i], keyValuePairs[i + 1]);
+            }
+
+            String[] players = sections[1].split("\u0000");
+            List<String> playerList = Arrays.stream(players).filter(p -> !p.isEmpty()).collect(Collectors.toList());
+
+            serverInfo.put("players", playerList);
+
+            return serverInfo;
+        }
+
+        // what the old MOTDResponse(Map) constructor did
+        @SuppressWarnings("unchecked")
+        static MOTDResponse toResponse(Map<String, Object> rawData) {
+            return new MOTDResponse(
+                    (String) rawData.getOrDefault("hostname", ""),
+                    Integer.parseInt((String) rawData.getOrDefault("numplayers", "0")),
+                    List.copyOf((List<String>) rawData.getOrDefault("players", List.of())),
+                    (String) rawData.getOrDefault("gametype", ""),
+                    Integer.parseInt((String) rawData.getOrDefault("maxplayers", "0")),
+                    Integer.parseInt((String) rawData.getOrDefault("hostport", "25565")),
+                    (String) rawData.getOrDefault("version", ""),
+                    (String) rawData.getOrDefault("map", ""),
+                    (String) rawData.getOrDefault("game_id", ""),
+                    System.currentTimeMillis(),
+                    false);
+        }
+    }
+}
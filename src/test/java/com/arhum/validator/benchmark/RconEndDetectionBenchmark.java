@@ -0,0 +1,57 @@
+package com.arhum.validator.benchmark;
+
+import com.arhum.validator.config.rcon.NettyRconClient;
+import com.arhum.validator.config.rcon.RconNettyConfig;
+import com.arhum.validator.config.rcon.RconTransport;
+import com.arhum.validator.fake.FakeMinecraftServer;
+import com.arhum.validator.model.enums.RconEndDetection;
+import com.arhum.validator.util.RconResponseBuffer;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The three {@link RconEndDetection} strategies against {@link FakeMinecraftServer}, for an answer that fits one
+ * fragment and one that takes three. Sample time mode prints the percentiles next to the average.
+ * <p>
+ * Exact multiples of 4096 bytes are left out on purpose, SHORT_PACKET would sit those out until the timeout.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class RconEndDetectionBenchmark {
+
+    @Param({"SENTINEL", "SHORT_PACKET", "ADAPTIVE"})
+    private RconEndDetection endDetection;
+
+    @Param({"100", "10000"})
+    private int responseBytes;
+
+    private FakeMinecraftServer server;
+    private RconTransport rcon;
+    private String command;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        server = FakeMinecraftServer.start();
+        String password = server.getSettings().getRconPassword();
+
+        rcon = new NettyRconClient(new RconNettyConfig(), password);
+        command = "bytes " + responseBytes;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        server.close();
+    }
+
+    @Benchmark
+    public String execute() {
+        return rcon.execute(server.getHost(), server.getRconPort(), command, endDetection, RconResponseBuffer::toString).block();
+    }
+}
@@ -0,0 +1,63 @@
+package com.arhum.validator.benchmark;
+
+import com.arhum.validator.model.rcon.RconPacket;
+import com.arhum.validator.model.response.RconTextSpan;
+import com.arhum.validator.util.RconResponseBuffer;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Removing colour codes while decoding ({@link RconResponseBuffer#toStrippedString()}) against decoding first and
+ * cleaning up with a regex afterwards, which is what clients did with the RAW output. Every benchmark starts from the
+ * raw bytes of a response, so the decode is part of each number.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RconFormattingBenchmark {
+
+    private static final Pattern CODES = Pattern.compile("§.");
+
+    @Param({"64", "1024", "4096"})
+    private int payloadSize;
+
+    private byte[] raw;
+    private final RconResponseBuffer buffer = new RconResponseBuffer(4096);
+
+    @Setup
+    public void setup() {
+        // roughly what a modded server's help or list output looks like, a code every dozen or so chars
+        String line = "§6There are §c3§6 of a max of §c20§6 players online: §rSteve, §lAlex§r\n";
+        raw = line.repeat(payloadSize / line.length() + 1).substring(0, payloadSize).getBytes(RconPacket.CHARSET);
+    }
+
+    @Benchmark
+    public String stringReplaceAll() {
+        return new String(raw, RconPacket.CHARSET).replaceAll("§.", "");
+    }
+
+    @Benchmark
+    public String precompiledReplaceAll() {
+        return CODES.matcher(new String(raw, RconPacket.CHARSET)).replaceAll("");
+    }
+
+    @Benchmark
+    public String stripWhileDecoding() {
+        buffer.reset();
+        buffer.append(raw, 0, raw.length);
+        return buffer.toStrippedString();
+    }
+
+    @Benchmark
+    public List<RconTextSpan> spans() {
+        buffer.reset();
+        buffer.append(raw, 0, raw.length);
+        return buffer.toSpans();
+    }
+}
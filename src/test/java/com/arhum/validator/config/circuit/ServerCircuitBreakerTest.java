@@ -0,0 +1,186 @@
+package com.arhum.validator.config.circuit;
+
+import com.arhum.validator.exception.ServiceUnavailableException;
+import com.arhum.validator.model.enums.CircuitState;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ServerCircuitBreakerTest {
+
+    private static final String SERVER = "mc.example.com";
+
+    private final ServerCircuitBreaker breaker;
+
+    ServerCircuitBreakerTest() {
+        CircuitBreakerConfig config = new CircuitBreakerConfig();
+        config.setFailureThreshold(3);
+        config.setOpenDuration(Duration.ofMillis(100));
+        config.setIdleAfter(Duration.ofMillis(100));
+        config.setMaxTracked(3);
+        breaker = new ServerCircuitBreaker(config);
+    }
+
+    private CircuitState state() {
+        return breaker.getState(SERVER).getState();
+    }
+
+    private void fail(int times) {
+        for (int i = 0; i < times; i++) {
+            breaker.acquire(SERVER).failure();
+        }
+    }
+
+    @Test
+    void unknownServersAreClosed() {
+        assertEquals(CircuitState.CLOSED, state());
+    }
+
+    @Test
+    void opensAfterThresholdFailuresInARow() {
+        fail(2);
+        breaker.acquire(SERVER).success(); // resets the count
+        fail(2);
+        assertEquals(CircuitState.CLOSED, state());
+
+        fail(1);
+        assertEquals(CircuitState.OPEN, state());
+        assertEquals(3, breaker.getState(SERVER).getConsecutiveFailures());
+        assertTrue(breaker.getState(SERVER).getRetryAfterMillis() > 0);
+
+        ServiceUnavailableException e = assertThrows(ServiceUnavailableException.class, () -> breaker.acquire(SERVER));
+        assertEquals(5030, e.getCode());
+    }
+
+    @Test
+    void letsOneProbeThroughAfterOpenDuration() throws InterruptedException {
+        fail(3);
+        Thread.sleep(150);
+
+        ServerCircuitBreaker.Permit probe = breaker.acquire(SERVER);
+        assertEquals(CircuitState.HALF_OPEN, state());
+        assertThrows(ServiceUnavailableException.class, () -> breaker.acquire(SERVER)); // only the one
+
+        probe.success();
+        assertEquals(CircuitState.CLOSED, state());
+        assertEquals(0, breaker.getState(SERVER).getConsecutiveFailures());
+        breaker.acquire(SERVER).success();
+    }
+
+    @Test
+    void aFailedProbeOpensItAgain() throws InterruptedException {
+        fail(3);
+        Thread.sleep(150);
+
+        breaker.acquire(SERVER).failure();
+        assertEquals(CircuitState.OPEN, state());
+        assertThrows(ServiceUnavailableException.class, () -> breaker.acquire(SERVER));
+    }
+
+    @Test
+    void aReleasedProbeLetsTheNextCallerProbe() throws InterruptedException {
+        fail(3);
+        Thread.sleep(150);
+
+        breaker.acquire(SERVER).release();
+        assertEquals(CircuitState.HALF_OPEN, state());
+        breaker.acquire(SERVER).success();
+        assertEquals(CircuitState.CLOSED, state());
+    }
+
+    @Test
+    void onlyTheFirstReportOfAPermitCounts() {
+        ServerCircuitBreaker.Permit permit = breaker.acquire(SERVER);
+        permit.failure();
+        permit.failure();
+        permit.failure();
+        assertEquals(1, breaker.getState(SERVER).getConsecutiveFailures());
+    }
+
+    @Test
+    void onlyNetworkFailuresCountWhenProtecting() {
+        for (int i = 0; i < 5; i++) {
+            breaker.protect(SERVER, Mono.error(new IllegalStateException("rejected"))).onErrorResume(e -> Mono.empty()).block();
+        }
+        assertEquals(CircuitState.CLOSED, state());
+
+        for (int i = 0; i < 3; i++) {
+            breaker.protect(SERVER, Mono.error(new IOException("timed out"))).onErrorResume(e -> Mono.empty()).block();
+        }
+        assertEquals(CircuitState.OPEN, state());
+        assertThrows(ServiceUnavailableException.class, () -> breaker.protect(SERVER, Mono.just("ok")).block());
+    }
+
+    @Test
+    void serversHaveCircuitsOfTheirOwn() {
+        fail(3);
+        assertEquals(CircuitState.OPEN, state());
+        assertEquals(CircuitState.CLOSED, breaker.getState("other.example.com").getState());
+        breaker.acquire("other.example.com").success();
+    }
+
+    @Test
+    void oneOffTargetLeavesNothingBehind() {
+        breaker.acquire("once.example.com").success();
+        breaker.protect("twice.example.com", Mono.just("ok")).block();
+        breaker.protect("rejected.example.com", Mono.error(new IllegalStateException("rejected")))
+                .onErrorResume(e -> Mono.empty()).block();
+
+        assertEquals(0, breaker.size());
+    }
+
+    @Test
+    void circuitWithCallsInFlightIsKept() {
+        ServerCircuitBreaker.Permit first = breaker.acquire(SERVER);
+        breaker.acquire(SERVER).success();
+        assertEquals(1, breaker.size());
+
+        first.failure();
+        assertEquals(1, breaker.getState(SERVER).getConsecutiveFailures());
+    }
+
+    @Test
+    void failuresAreForgottenOnceIdle() throws InterruptedException {
+        fail(1);
+        breaker.evictIdle();
+        assertEquals(1, breaker.size());
+
+        Thread.sleep(150);
+        breaker.evictIdle();
+        assertEquals(0, breaker.size());
+    }
+
+    @Test
+    void openCircuitIsKeptWhileFailingFast() throws InterruptedException {
+        CircuitBreakerConfig config = new CircuitBreakerConfig();
+        config.setOpenDuration(Duration.ofSeconds(10));
+        config.setIdleAfter(Duration.ofMillis(50));
+        ServerCircuitBreaker breaker = new ServerCircuitBreaker(config);
+        for (int i = 0; i < 3; i++) {
+            breaker.acquire(SERVER).failure();
+        }
+
+        Thread.sleep(100);
+        breaker.evictIdle();
+        assertEquals(1, breaker.size());
+        assertEquals(CircuitState.OPEN, breaker.getState(SERVER).getState());
+    }
+
+    @Test
+    void targetsPastTheCapGoThroughUnprotected() {
+        for (int i = 0; i < 3; i++) {
+            breaker.acquire("down" + i + ".example.com").failure();
+        }
+
+        fail(5);
+        assertEquals(3, breaker.size());
+        assertEquals(CircuitState.CLOSED, state());
+        breaker.acquire(SERVER).success();
+    }
+}
@@ -0,0 +1,80 @@
+package com.arhum.validator.config.firewall;
+
+import com.arhum.validator.exception.TooManyRequestsException;
+import com.arhum.validator.model.enums.FirewallOperationStatus;
+import com.arhum.validator.model.enums.FirewallOperationType;
+import com.arhum.validator.model.response.FirewallOperationResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class FirewallOperationTrackerTest {
+
+    private final FirewallOperationConfig config = new FirewallOperationConfig();
+    private FirewallOperationTracker tracker;
+
+    private FirewallOperationTracker tracker(int maxPending, int maxTracked) {
+        config.setMaxPending(maxPending);
+        config.setMaxTracked(maxTracked);
+        tracker = new FirewallOperationTracker(null, config, "project"); // gcp operations are not polled here
+        return tracker;
+    }
+
+    @AfterEach
+    void tearDown() {
+        tracker.close();
+    }
+
+    @Test
+    void finishedOperationsNeverBlockNewOnes() {
+        tracker(2, 3);
+
+        // the already-allowed fast path, over and over
+        List<FirewallOperationResponse> started = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            started.add(tracker.start(FirewallOperationType.ADD_IP, "1.2.3." + i + "/32", "Done", CompletableFuture.completedFuture(null)));
+        }
+
+        // only the newest ones are kept
+        assertNull(tracker.get(started.get(0).getId()));
+        FirewallOperationResponse last = tracker.get(started.get(99).getId());
+        assertNotNull(last);
+        assertEquals(FirewallOperationStatus.DONE, last.getStatus());
+    }
+
+    @Test
+    void addIpIsRefusedPastMaxPending() {
+        tracker(2, 3);
+
+        tracker.start(FirewallOperationType.ADD_IP, "1.2.3.4/32", "Done", new CompletableFuture<>());
+        CompletableFuture<Void> second = new CompletableFuture<>();
+        tracker.start(FirewallOperationType.ADD_IP, "1.2.3.5/32", "Done", second);
+
+        assertThrows(TooManyRequestsException.class,
+                () -> tracker.start(FirewallOperationType.ADD_IP, "1.2.3.6/32", "Done", new CompletableFuture<>()));
+
+        second.complete(null);
+        assertNotNull(tracker.start(FirewallOperationType.ADD_IP, "1.2.3.6/32", "Done", new CompletableFuture<>()));
+    }
+
+    @Test
+    void adminOperationsAreNeverRefused() {
+        tracker(1, 1);
+        tracker.start(FirewallOperationType.ADD_IP, "1.2.3.4/32", "Done", new CompletableFuture<>());
+
+        FirewallOperationResponse purge = tracker.start(FirewallOperationType.PURGE, null, "Done", new CompletableFuture<>());
+        FirewallOperationResponse open = tracker.start(FirewallOperationType.MAKE_PUBLIC, null, "Done", new CompletableFuture<>());
+
+        // unfinished ones are kept even past max-tracked, their callers still have to find out how it went
+        assertEquals(FirewallOperationStatus.PENDING, tracker.get(purge.getId()).getStatus());
+        assertEquals(FirewallOperationStatus.PENDING, tracker.get(open.getId()).getStatus());
+    }
+}
@@ -0,0 +1,105 @@
+package com.arhum.validator.config.firewall;
+
+import com.google.cloud.compute.v1.Firewall;
+import com.google.cloud.compute.v1.FirewallsClient;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class FirewallRangeCacheTest {
+
+    private final AtomicInteger lists = new AtomicInteger();
+
+    private FirewallRangeCache cache(FirewallsClient client) {
+        return new FirewallRangeCache(client, "project", "allow-mc");
+    }
+
+    private static FirewallsClient.ListPagedResponse page(String... ranges) {
+        FirewallsClient.ListPagedResponse page = mock(FirewallsClient.ListPagedResponse.class);
+        when(page.iterateAll()).thenReturn(List.of(Firewall.newBuilder().setName("allow-mc").addAllSourceRanges(List.of(ranges)).build()));
+        return page;
+    }
+
+    @Test
+    void concurrentFirstCallsShareOneListing() throws Exception {
+        CountDownLatch listing = new CountDownLatch(1);
+        CompletableFuture<Void> release = new CompletableFuture<>();
+        FirewallsClient client = mock(FirewallsClient.class);
+        when(client.list("project")).thenAnswer(invocation -> {
+            lists.incrementAndGet();
+            listing.countDown();
+            release.join();
+            return page("10.0.0.0/8");
+        });
+        FirewallRangeCache cache = cache(client);
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Boolean>> checks = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                checks.add(pool.submit(() -> cache.contains("10.1.2.3/32")));
+            }
+            assertTrue(listing.await(5, TimeUnit.SECONDS));
+            Thread.sleep(100); // let the others pile up behind the listing
+            release.complete(null);
+
+            for (Future<Boolean> check : checks) {
+                assertTrue(check.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(1, lists.get());
+        assertFalse(cache.contains("11.0.0.1/32"));
+        assertEquals(1, lists.get());
+    }
+
+    @Test
+    void failedListingIsTriedAgainByTheNextCall() {
+        FirewallsClient client = mock(FirewallsClient.class);
+        FirewallsClient.ListPagedResponse page = page("10.0.0.0/8");
+        when(client.list("project")).thenAnswer(invocation -> {
+            if (lists.incrementAndGet() == 1) {
+                throw new IllegalStateException("gcp is down");
+            }
+            return page;
+        });
+        FirewallRangeCache cache = cache(client);
+
+        assertThrows(IllegalStateException.class, () -> cache.contains("10.1.2.3/32"));
+        assertTrue(cache.contains("10.1.2.3/32"));
+        assertTrue(cache.isListed("10.0.0.0/8"));
+        assertEquals(2, lists.get());
+    }
+
+    @Test
+    void refreshKeepsWhatWasPatchedWhileListing() {
+        FirewallsClient client = mock(FirewallsClient.class);
+        FirewallRangeCache cache = cache(client);
+        FirewallsClient.ListPagedResponse stale = page("10.0.0.0/8");
+        when(client.list("project")).thenAnswer(invocation -> {
+            cache.update("allow-mc", List.of("10.0.0.0/8", "192.168.1.1/32")); // one of our patches lands meanwhile
+            return stale;
+        });
+
+        cache.refresh();
+
+        assertTrue(cache.isListed("192.168.1.1/32"));
+    }
+}
@@ -0,0 +1,81 @@
+package com.arhum.validator.config.query;
+
+import com.arhum.validator.config.circuit.CircuitBreakerConfig;
+import com.arhum.validator.config.circuit.ServerCircuitBreaker;
+import com.arhum.validator.fake.FakeMinecraftServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ServerStatusPollerTest {
+
+    private FakeMinecraftServer server;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = FakeMinecraftServer.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    private ServerStatusPoller poller(String host, List<String> hosts, int maxTargets) throws Exception {
+        StatusPollerConfig config = new StatusPollerConfig();
+        config.setHost(host);
+        config.setHosts(hosts);
+        config.setMaxTargets(maxTargets);
+
+        ServerListPingConfig ping = new ServerListPingConfig();
+        ping.setEnabled(false);
+
+        StatusHistoryConfig history = new StatusHistoryConfig();
+        history.setEnabled(false);
+
+        ServerStatusPoller poller = new ServerStatusPoller(config, new QueryClient(new QueryConfig()), new ServerListPingClient(ping),
+                ping, new ServerCircuitBreaker(new CircuitBreakerConfig()), new PlayerEventHub(), new StatusHistory(history, null),
+                server.getQueryPort());
+        poller.init();
+        return poller;
+    }
+
+    @Test
+    void configuredServerIsServedFromItsSnapshot() throws Exception {
+        ServerStatusPoller poller = poller(server.getHost(), List.of(), 20);
+        assertTrue(poller.isPolled(server.getHost()));
+
+        poller.getSnapshot(server.getHost());
+        long queries = server.getQueryCount();
+        poller.getSnapshot(server.getHost());
+        assertEquals(queries, server.getQueryCount());
+    }
+
+    @Test
+    void otherAddressesAreQueriedPerRequestAndNotKept() throws Exception {
+        ServerStatusPoller poller = poller("mc.example.invalid", List.of(), 20);
+
+        poller.getSnapshot(server.getHost());
+        long queries = server.getQueryCount();
+        poller.getSnapshot(server.getHost());
+        assertTrue(server.getQueryCount() > queries);
+
+        poller.watch(server.getHost());
+        assertFalse(poller.isPolled(server.getHost()));
+    }
+
+    @Test
+    void configuredServersAreCapped() throws Exception {
+        ServerStatusPoller poller = poller(" a ", List.of("b", "a", "c", ""), 2);
+
+        assertTrue(poller.isPolled("a"));
+        assertTrue(poller.isPolled("b"));
+        assertFalse(poller.isPolled("c"));
+    }
+}
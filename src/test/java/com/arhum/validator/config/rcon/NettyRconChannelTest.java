@@ -0,0 +1,85 @@
+package com.arhum.validator.config.rcon;
+
+import com.arhum.validator.fake.FakeMinecraftServer;
+import com.arhum.validator.fake.FakeServerSettings;
+import com.arhum.validator.model.enums.RconEndDetection;
+import com.arhum.validator.util.RconResponseBuffer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NettyRconChannelTest {
+
+    private FakeMinecraftServer server;
+    private NettyRconClient client;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        FakeServerSettings settings = new FakeServerSettings();
+        settings.setLatency(Duration.ofMillis(300)); // long enough to retire with the command still out
+        settings.setPlayers(2);
+        server = new FakeMinecraftServer(settings);
+        client = new NettyRconClient(new RconNettyConfig(), settings.getRconPassword());
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    private NettyRconChannel channel() {
+        return client.connect(server.getHost(), server.getRconPort()).block(Duration.ofSeconds(5));
+    }
+
+    private CompletableFuture<String> list(NettyRconChannel channel) {
+        return channel.submit("list", RconEndDetection.SENTINEL, RconResponseBuffer::toString).toFuture();
+    }
+
+    // the caller's future completes just before the correlator lets go of the command, on the event loop
+    private static boolean closesSoon(NettyRconChannel channel) throws InterruptedException {
+        for (int i = 0; i < 100 && !channel.isClosed(); i++) {
+            Thread.sleep(10);
+        }
+        return channel.isClosed();
+    }
+
+    @Test
+    void retiredChannelClosesOnceItsLastCommandIsAnswered() throws Exception {
+        NettyRconChannel channel = channel();
+
+        CompletableFuture<String> inFlight = list(channel);
+        channel.retire();
+        assertFalse(channel.isClosed(), "closed with a command still in flight");
+        assertFalse(channel.isUsable());
+
+        assertTrue(inFlight.get(5, TimeUnit.SECONDS).startsWith("There are 2 of a max of 20"));
+        assertTrue(closesSoon(channel));
+    }
+
+    @Test
+    void retiredChannelClosesWhenItsLastCommandIsCancelled() throws Exception {
+        NettyRconChannel channel = channel();
+
+        CompletableFuture<String> inFlight = list(channel);
+        channel.retire();
+        inFlight.cancel(false);
+
+        assertTrue(closesSoon(channel));
+    }
+
+    @Test
+    void idleRetiredChannelClosesRightAway() throws Exception {
+        NettyRconChannel channel = channel();
+
+        list(channel).get(5, TimeUnit.SECONDS);
+        channel.retire();
+        assertTrue(closesSoon(channel));
+    }
+}
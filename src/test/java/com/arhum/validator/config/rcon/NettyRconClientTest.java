@@ -0,0 +1,81 @@
+package com.arhum.validator.config.rcon;
+
+import com.arhum.validator.fake.FakeMinecraftServer;
+import com.arhum.validator.fake.FakeServerSettings;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NettyRconClientTest {
+
+    private final FakeServerSettings fastSettings = new FakeServerSettings();
+    private final FakeServerSettings slowSettings = new FakeServerSettings();
+    private FakeMinecraftServer fast;
+    private FakeMinecraftServer slow;
+
+    private final NettyRconClient client = new NettyRconClient(new RconNettyConfig(), "password");
+
+    @AfterEach
+    void tearDown() {
+        if (fast != null) {
+            fast.close();
+        }
+        if (slow != null) {
+            slow.close();
+        }
+    }
+
+    private FakeMinecraftServer slowServer() throws Exception {
+        slowSettings.setLatency(Duration.ofSeconds(1)); // the login answer is just as slow
+        return new FakeMinecraftServer(slowSettings);
+    }
+
+    @Test
+    void subscribingDoesNotWaitForTheConnection() throws Exception {
+        fast = new FakeMinecraftServer(fastSettings);
+        slow = slowServer();
+        // the very first connect in the jvm spends a while loading netty, that isn't what this is about
+        client.execute(fast.getHost(), fast.getRconPort(), "list").block(Duration.ofSeconds(5));
+
+        CompletableFuture<String> answer = new CompletableFuture<>();
+        long start = System.nanoTime();
+        client.execute(slow.getHost(), slow.getRconPort(), "list").subscribe(answer::complete, answer::completeExceptionally);
+        long tookMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue(tookMillis < 500, "subscribe took " + tookMillis + "ms");
+        assertFalse(answer.isDone());
+        assertTrue(answer.get(5, TimeUnit.SECONDS).startsWith("There are 0 of a max of 20"));
+    }
+
+    // the scheduler starts a queued command on whatever thread finished the previous one, here an event loop
+    @Test
+    void queuedCommandConnectingFromTheEventLoopDoesNotStallIt() throws Exception {
+        fast = new FakeMinecraftServer(fastSettings);
+        slow = slowServer();
+        RconSchedulerConfig schedulerConfig = new RconSchedulerConfig();
+        schedulerConfig.setMaxConcurrent(1);
+        RconCommandScheduler scheduler = new RconCommandScheduler(schedulerConfig);
+        client.execute(fast.getHost(), fast.getRconPort(), "list").block(Duration.ofSeconds(5)); // already logged in
+
+        CompletableFuture<String> first = scheduler.submit("mc", "a", false,
+                () -> client.execute(fast.getHost(), fast.getRconPort(), "list")).toFuture();
+        CompletableFuture<String> queued = scheduler.submit("mc", "b", false,
+                () -> client.execute(slow.getHost(), slow.getRconPort(), "list")).toFuture();
+        first.get(5, TimeUnit.SECONDS);
+
+        // the queued command is logging into the slow server now. the fast connection must still answer right away
+        long start = System.nanoTime();
+        client.execute(fast.getHost(), fast.getRconPort(), "list").block(Duration.ofSeconds(5));
+        long tookMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue(tookMillis < 500, "answer took " + tookMillis + "ms");
+        assertFalse(queued.isDone());
+        assertTrue(queued.get(5, TimeUnit.SECONDS).startsWith("There are 0 of a max of 20"));
+    }
+}
@@ -0,0 +1,139 @@
+package com.arhum.validator.config.rcon;
+
+import com.arhum.validator.exception.TooManyRequestsException;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RconCommandSchedulerTest {
+
+    private final List<String> started = new ArrayList<>();
+
+    private RconCommandScheduler scheduler(int maxConcurrent, int maxQueued, int maxQueuedPerUser) {
+        RconSchedulerConfig config = new RconSchedulerConfig();
+        config.setMaxConcurrent(maxConcurrent);
+        config.setMaxQueued(maxQueued);
+        config.setMaxQueuedPerUser(maxQueuedPerUser);
+        return new RconCommandScheduler(config);
+    }
+
+    // a command that answers the moment it is started
+    private Mono<String> instant(RconCommandScheduler scheduler, String user, boolean priority, String name) {
+        return scheduler.submit("mc", user, priority, () -> Mono.fromCallable(() -> {
+            started.add(name);
+            return name;
+        }));
+    }
+
+    // a command that runs until the sink is completed
+    private Mono<String> held(RconCommandScheduler scheduler, String user, String name, Sinks.One<String> done) {
+        return scheduler.submit("mc", user, false, () -> {
+            started.add(name);
+            return done.asMono();
+        });
+    }
+
+    @Test
+    void adminFirstThenRoundRobinPerUser() {
+        RconCommandScheduler scheduler = scheduler(1, 100, 100);
+        Sinks.One<String> blocker = Sinks.one();
+        held(scheduler, "x", "blocker", blocker).subscribe();
+
+        instant(scheduler, "a", false, "a1").subscribe();
+        instant(scheduler, "a", false, "a2").subscribe();
+        instant(scheduler, "a", false, "a3").subscribe();
+        instant(scheduler, "b", false, "b1").subscribe();
+        instant(scheduler, "c", false, "c1").subscribe();
+        instant(scheduler, "admin", true, "admin1").subscribe();
+        assertEquals(List.of("blocker"), started);
+
+        blocker.tryEmitValue("done");
+        assertEquals(List.of("blocker", "admin1", "a1", "b1", "c1", "a2", "a3"), started);
+    }
+
+    @Test
+    void runsUpToMaxConcurrentAtOnce() {
+        RconCommandScheduler scheduler = scheduler(2, 100, 100);
+        Sinks.One<String> first = Sinks.one();
+        Sinks.One<String> second = Sinks.one();
+        held(scheduler, "a", "first", first).subscribe();
+        held(scheduler, "b", "second", second).subscribe();
+        instant(scheduler, "c", false, "third").subscribe();
+        assertEquals(List.of("first", "second"), started);
+
+        second.tryEmitValue("done");
+        assertEquals(List.of("first", "second", "third"), started);
+    }
+
+    @Test
+    void fullQueueAndFullUserShareAreRejected() {
+        RconCommandScheduler scheduler = scheduler(1, 3, 2);
+        held(scheduler, "x", "blocker", Sinks.one()).subscribe();
+
+        instant(scheduler, "a", false, "a1").subscribe();
+        instant(scheduler, "a", false, "a2").subscribe();
+        AtomicReference<Throwable> userFull = new AtomicReference<>();
+        instant(scheduler, "a", false, "a3").subscribe(null, userFull::set);
+        assertInstanceOf(TooManyRequestsException.class, userFull.get());
+
+        instant(scheduler, "b", false, "b1").subscribe();
+        AtomicReference<Throwable> queueFull = new AtomicReference<>();
+        instant(scheduler, "admin", true, "admin1").subscribe(null, queueFull::set);
+        assertInstanceOf(TooManyRequestsException.class, queueFull.get());
+        assertEquals(4290, ((TooManyRequestsException) queueFull.get()).getCode());
+    }
+
+    @Test
+    void cancelledWhileQueuedNeverRunsAndFreesItsPlace() {
+        RconCommandScheduler scheduler = scheduler(1, 1, 1);
+        Sinks.One<String> blocker = Sinks.one();
+        held(scheduler, "x", "blocker", blocker).subscribe();
+
+        Disposable waiting = instant(scheduler, "a", false, "a1").subscribe();
+        waiting.dispose();
+
+        // its place in the queue is free again
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        instant(scheduler, "a", false, "a2").subscribe(null, error::set);
+        assertNull(error.get());
+
+        blocker.tryEmitValue("done");
+        assertEquals(List.of("blocker", "a2"), started);
+    }
+
+    @Test
+    void cancelledWhileRunningGivesTheSlotBack() {
+        RconCommandScheduler scheduler = scheduler(1, 10, 10);
+        Sinks.One<String> never = Sinks.one();
+        Disposable running = held(scheduler, "x", "stuck", never).subscribe();
+        instant(scheduler, "a", false, "a1").subscribe();
+        assertEquals(List.of("stuck"), started);
+
+        running.dispose();
+        assertEquals(List.of("stuck", "a1"), started);
+        assertEquals(0, never.currentSubscriberCount()); // and the work itself was cancelled
+    }
+
+    @Test
+    void failingWorkGivesTheSlotBack() {
+        RconCommandScheduler scheduler = scheduler(1, 10, 10);
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        scheduler.submit("mc", "a", false, () -> {
+            throw new IllegalStateException("broken");
+        }).subscribe(null, error::set);
+
+        assertInstanceOf(IllegalStateException.class, error.get());
+        instant(scheduler, "b", false, "b1").subscribe();
+        assertTrue(started.contains("b1"));
+    }
+}
@@ -0,0 +1,67 @@
+package com.arhum.validator.config.rcon;
+
+import com.arhum.validator.model.rcon.RconPacket;
+import com.arhum.validator.util.RconResponseBuffer;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.TooLongFrameException;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RconFrameCodecTest {
+
+    private final List<Integer> requestIds = new ArrayList<>();
+    private final List<Integer> lengths = new ArrayList<>();
+
+    private EmbeddedChannel channel() {
+        RconFrameCodec.FrameHandler handler = new RconFrameCodec.FrameHandler();
+        handler.setListener(frame -> {
+            RconResponseBuffer body = new RconResponseBuffer();
+            frame.appendBodyTo(body);
+            requestIds.add(frame.getRequestId());
+            lengths.add(body.length());
+        });
+        return new EmbeddedChannel(RconFrameCodec.frameDecoder(), handler);
+    }
+
+    // direct, so the body goes through the handler's scratch array like it does on a pooled channel
+    private static ByteBuf packet(int lengthField, int requestId, int bodyLength) {
+        ByteBuf out = Unpooled.directBuffer();
+        out.writeIntLE(lengthField).writeIntLE(requestId).writeIntLE(0);
+        for (int i = 0; i < bodyLength; i++) {
+            out.writeByte('a');
+        }
+        return out.writeByte(0).writeByte(0);
+    }
+
+    private static ByteBuf packet(int requestId, int bodyLength) {
+        return packet(RconPacket.HEADER_AND_PADDING + bodyLength, requestId, bodyLength);
+    }
+
+    @Test
+    void passesFragmentsSlightlyOverTheLimit() {
+        EmbeddedChannel channel = channel();
+
+        channel.writeInbound(packet(1, RconPacket.MAX_RESPONSE_PAYLOAD));
+        channel.writeInbound(packet(2, RconPacket.MAX_RESPONSE_PAYLOAD + 3));
+        channel.writeInbound(packet(3, 5));
+
+        assertEquals(List.of(1, 2, 3), requestIds);
+        assertEquals(List.of(RconPacket.MAX_RESPONSE_PAYLOAD, RconPacket.MAX_RESPONSE_PAYLOAD + 3, 5), lengths);
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    void rejectsCorruptLengths() {
+        EmbeddedChannel channel = channel();
+
+        assertThrows(TooLongFrameException.class, () -> channel.writeInbound(packet(RconPacket.MAX_READ_LENGTH + 1, 1, 0)));
+        channel.finishAndReleaseAll();
+    }
+}
@@ -0,0 +1,153 @@
+package com.arhum.validator.config.rcon;
+
+import com.arhum.validator.model.enums.RconCommands;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RconResponseCacheTest {
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private RconResponseCache cache(int maxEntries) {
+        RconCacheConfig config = new RconCacheConfig();
+        config.setMaxEntries(maxEntries);
+        return new RconResponseCache(config);
+    }
+
+    private Mono<String> loader(String value) {
+        return Mono.fromCallable(() -> {
+            loads.incrementAndGet();
+            return value;
+        });
+    }
+
+    // a load that only answers once the sink is completed
+    private Mono<String> held(Sinks.One<String> done) {
+        return Mono.defer(() -> {
+            loads.incrementAndGet();
+            return done.asMono();
+        });
+    }
+
+    @Test
+    void repeatedReadsShareOneLoad() {
+        RconResponseCache cache = cache(16);
+
+        assertEquals("a", cache.get("mc", "players", "list", loader("a")).block());
+        assertEquals("a", cache.get("mc", "players", "list", loader("b")).block());
+
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    void failedLoadsAreNotCached() {
+        RconResponseCache cache = cache(16);
+
+        Mono<String> failing = Mono.error(new IllegalStateException("down"));
+        assertThrows(IllegalStateException.class, () -> cache.get("mc", "players", "list", failing).block());
+
+        assertEquals("a", cache.get("mc", "players", "list", loader("a")).block());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void mutatingCommandDropsItsGroupOnly() {
+        RconResponseCache cache = cache(16);
+        cache.get("mc", "players", "list", loader("players")).block();
+        cache.get("mc", "whitelist", "whitelist list", loader("whitelist")).block();
+
+        cache.invalidate("mc", RconCommands.WHITELIST_ADD, "whitelist add steve");
+
+        assertEquals(1, cache.size());
+        cache.get("mc", "players", "list", loader("players")).block();
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void readOnlyQueriesAreRecognisedInCustomCommands() {
+        assertEquals("players", RconResponseCache.cacheGroupFor(RconCommands.CUSTOM, RconResponseCache.normalize(" /List ")));
+        assertEquals("time", RconResponseCache.cacheGroupFor(RconCommands.CUSTOM, "time query daytime"));
+        assertEquals("whitelist", RconResponseCache.cacheGroupFor(RconCommands.CUSTOM, "whitelist list"));
+        assertNull(RconResponseCache.cacheGroupFor(RconCommands.CUSTOM, "time set day"));
+        assertNull(RconResponseCache.cacheGroupFor(RconCommands.TIME_SET, "time set day"));
+    }
+
+    @Test
+    void readsLeaveTheCacheAlone() {
+        RconResponseCache cache = cache(16);
+        cache.get("mc", "players", "list", loader("players")).block();
+
+        cache.invalidate("mc", RconCommands.CUSTOM, "list");
+
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void readThatRacedAMutationIsNotKept() {
+        RconResponseCache cache = cache(16);
+        Sinks.One<String> done = Sinks.one();
+        Mono<String> before = cache.get("mc", "whitelist", "whitelist list", held(done)).cache();
+        before.subscribe();
+
+        cache.invalidate("mc", RconCommands.WHITELIST_ADD, "whitelist add steve");
+        done.tryEmitValue("without steve");
+
+        // whoever was already waiting still gets the answer
+        assertEquals("without steve", before.block());
+        assertEquals(0, cache.size());
+        assertEquals("with steve", cache.get("mc", "whitelist", "whitelist list", loader("with steve")).block());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void readIsNotKeptAfterAnEverythingInvalidation() {
+        RconResponseCache cache = cache(16);
+        Sinks.One<String> done = Sinks.one();
+        cache.get("mc", "players", "list", held(done)).subscribe();
+
+        cache.invalidate("mc", RconCommands.STOP, "stop");
+        done.tryEmitValue("old");
+
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void mutationsElsewhereDoNotAffectALoad() {
+        RconResponseCache cache = cache(16);
+        Sinks.One<String> done = Sinks.one();
+        cache.get("mc", "players", "list", held(done)).subscribe();
+
+        cache.invalidate("other", RconCommands.KICK, "kick steve");
+        cache.invalidate("mc", RconCommands.WHITELIST_ADD, "whitelist add steve");
+        done.tryEmitValue("players");
+
+        assertEquals(1, cache.size());
+        assertEquals("players", cache.get("mc", "players", "list", loader("new")).block());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void forgottenInvalidationsErrOnTheSideOfReloading() {
+        RconResponseCache cache = cache(2);
+        Sinks.One<String> done = Sinks.one();
+        cache.get("mc", "players", "list", held(done)).subscribe();
+
+        cache.invalidate("mc", RconCommands.KICK, "kick steve");
+        // pushes the kick out of the remembered invalidations
+        for (int i = 0; i < 5; i++) {
+            cache.invalidate("other" + i, RconCommands.KICK, "kick steve");
+        }
+        done.tryEmitValue("steve");
+
+        assertEquals(0, cache.size());
+    }
+}
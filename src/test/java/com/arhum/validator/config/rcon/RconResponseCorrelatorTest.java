@@ -0,0 +1,58 @@
+package com.arhum.validator.config.rcon;
+
+import com.arhum.validator.model.rcon.RconPacket;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RconResponseCorrelatorTest {
+
+    private final AtomicInteger idle = new AtomicInteger();
+    private final RconResponseCorrelator correlator = new RconResponseCorrelator(sentinel -> {
+    }, idle::incrementAndGet);
+
+    @Test
+    void onIdleRunsAfterTheLastCommandIsUnregistered() {
+        CompletableFuture<String> first = correlator.register(1, 2);
+        CompletableFuture<String> second = correlator.register(3, 4);
+
+        // what a channel used to do: a callback on the caller's future still sees the command registered
+        AtomicInteger seenInFlight = new AtomicInteger(-1);
+        first.whenComplete((res, ex) -> seenInFlight.set(correlator.size()));
+
+        correlator.onFrame(new RconPacket(1, 0, "one"));
+        correlator.onFrame(new RconPacket(2, 0, ""));
+        assertEquals("one", first.join());
+        assertEquals(2, seenInFlight.get());
+        assertEquals(0, idle.get());
+
+        correlator.onFrame(new RconPacket(3, 0, "two"));
+        correlator.onFrame(new RconPacket(4, 0, ""));
+        assertEquals("two", second.join());
+        assertTrue(correlator.isEmpty());
+        assertEquals(1, idle.get());
+    }
+
+    @Test
+    void onIdleRunsWhenTheLastCommandIsCancelled() {
+        CompletableFuture<String> pending = correlator.register(5, 6);
+        pending.cancel(false);
+
+        assertTrue(correlator.isEmpty());
+        assertEquals(1, idle.get());
+    }
+
+    @Test
+    void onIdleRunsOnceForAStreamCutOffAtItsCap() {
+        correlator.registerStream(7, 8, 4, false).onErrorResume(e -> Flux.empty()).subscribe();
+
+        correlator.onFrame(new RconPacket(7, 0, "more than four bytes"));
+        assertTrue(correlator.isEmpty());
+        assertEquals(1, idle.get());
+    }
+}
@@ -0,0 +1,571 @@
+package com.arhum.validator.fake;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stand-in for a minecraft server that speaks just enough RCON (TCP) and GameSpy4 query (UDP) for our client code,
+ * so the hot paths can be measured without a game server. Both listen on ephemeral ports on localhost.
+ * <p>
+ * RCON behaves like vanilla: login first, responses longer than 4096 bytes are split over several packets with the
+ * same request id, and unknown packet types (our sentinel) are answered with "Unknown request". Built in commands:
+ * <ul>
+ *     <li>{@code list} - the usual "There are N of a max of M players online: ..." line</li>
+ *     <li>{@code echo <text>} - the text back</li>
+ *     <li>{@code bytes <n>} - n bytes of filler, to force fragmentation</li>
+ *     <li>{@code colors} - a line full of section sign colour codes</li>
+ * </ul>
+ * Query answers the handshake and both basic and full stat. Challenge tokens are per address and expire after
+ * {@link FakeServerSettings#getTokenLifetime()}, stale tokens get no answer just like on the real thing.
+ * <p>
+ * The Server List Ping (TCP status json) listens on a port of its own, {@link #getPingPort()}. The real server has
+ * it on the game port.
+ */
+public class FakeMinecraftServer implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(FakeMinecraftServer.class);
+
+    public static final int MAX_RESPONSE_PAYLOAD = 4096;
+
+    private static final int TYPE_RESPONSE = 0;
+    private static final int TYPE_COMMAND = 2;
+    private static final int TYPE_AUTH_RESPONSE = 2;
+    private static final int TYPE_LOGIN = 3;
+
+    private final FakeServerSettings settings;
+    private final List<String> playerNames;
+
+    private final ServerSocket rconSocket;
+    private final DatagramSocket querySocket;
+    private final ServerSocket pingSocket;
+    private final ScheduledExecutorService replies = Executors.newScheduledThreadPool(2, daemon("fake-query-reply"));
+    private final Object mainThread = new Object(); // what serializeCommands locks on
+
+    private final Map<SocketAddress, Token> tokens = new ConcurrentHashMap<>();
+    private final List<Socket> connections = new ArrayList<>();
+
+    private final AtomicLong commands = new AtomicLong();
+    private final AtomicLong queries = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong pings = new AtomicLong();
+
+    private volatile boolean closed;
+
+    public FakeMinecraftServer(FakeServerSettings settings) throws IOException {
+        this.settings = settings;
+        this.playerNames = new CopyOnWriteArrayList<>();
+        for (int i = 0; i < settings.getPlayers(); i++) {
+            playerNames.add(String.format("Player_%05d", i));
+        }
+
+        this.rconSocket = new ServerSocket(0, 200, InetAddress.getLoopbackAddress());
+        this.querySocket = new DatagramSocket(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        this.pingSocket = new ServerSocket(0, 200, InetAddress.getLoopbackAddress());
+
+        daemon("fake-rcon-accept").newThread(this::acceptLoop).start();
+        daemon("fake-query").newThread(this::queryLoop).start();
+        daemon("fake-ping-accept").newThread(this::pingLoop).start();
+    }
+
+    public static FakeMinecraftServer start() throws IOException {
+        return new FakeMinecraftServer(new FakeServerSettings());
+    }
+
+    public String getHost() {
+        return "127.0.0.1";
+    }
+
+    public int getRconPort() {
+        return rconSocket.getLocalPort();
+    }
+
+    public int getQueryPort() {
+        return querySocket.getLocalPort();
+    }
+
+    public int getPingPort() {
+        return pingSocket.getLocalPort();
+    }
+
+    // players come and go, in the order vanilla keeps them: joins at the end
+    public void join(String player) {
+        playerNames.add(player);
+    }
+
+    public void leave(String player) {
+        playerNames.remove(player);
+    }
+
+    public FakeServerSettings getSettings() {
+        return settings;
+    }
+
+    public long getCommandCount() {
+        return commands.get();
+    }
+
+    public long getQueryCount() {
+        return queries.get();
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public long getPingCount() {
+        return pings.get();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            rconSocket.close();
+        } catch (IOException ignored) {
+        }
+        querySocket.close();
+        try {
+            pingSocket.close();
+        } catch (IOException ignored) {
+        }
+        replies.shutdownNow();
+
+        synchronized (connections) {
+            for (Socket socket : connections) {
+                try {
+                    socket.close();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    // ---- rcon ----
+
+    private void acceptLoop() {
+        while (!closed) {
+            try {
+                Socket socket = rconSocket.accept();
+                socket.setTcpNoDelay(true);
+                synchronized (connections) {
+                    connections.add(socket);
+                }
+                daemon("fake-rcon-conn").newThread(() -> serve(socket)).start();
+            } catch (IOException e) {
+                if (!closed) {
+                    logger.warn("fake rcon accept failed :: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (socket) {
+            InputStream in = socket.getInputStream();
+            OutputStream out = socket.getOutputStream();
+            boolean authenticated = false;
+
+            while (!closed) {
+                ByteBuffer packet = readPacket(in);
+                int requestId = packet.getInt();
+                int type = packet.getInt();
+                String body = new String(packet.array(), 8, packet.limit() - 10, StandardCharsets.ISO_8859_1);
+
+                if (type == TYPE_LOGIN) {
+                    authenticated = settings.getRconPassword().equals(body);
+                    writePacket(out, authenticated ? requestId : -1, TYPE_AUTH_RESPONSE, "");
+                    continue;
+                }
+                if (!authenticated) {
+                    return; // vanilla drops the connection
+                }
+
+                if (type == TYPE_COMMAND) {
+                    String output = run(body);
+                    respond(out, requestId, output);
+                } else {
+                    // what makes the sentinel trick work
+                    writePacket(out, requestId, TYPE_RESPONSE, "Unknown request " + Integer.toHexString(type));
+                }
+                out.flush();
+            }
+        } catch (EOFException ignored) {
+            // client hung up
+        } catch (IOException e) {
+            if (!closed) {
+                logger.debug("fake rcon connection ended :: {}", e.getMessage());
+            }
+        }
+    }
+
+    private String run(String command) {
+        sleepLatency();
+        commands.incrementAndGet();
+
+        if (settings.isSerializeCommands()) {
+            synchronized (mainThread) {
+                return answer(command);
+            }
+        }
+        return answer(command);
+    }
+
+    private String answer(String command) {
+        String[] parts = command.strip().split(" ", 2);
+        String arg = parts.length > 1 ? parts[1] : "";
+
+        switch (parts[0]) {
+            case "list":
+                return "There are " + playerNames.size() + " of a max of " + settings.getMaxPlayers() + " players online: "
+                        + String.join(", ", playerNames);
+            case "echo":
+                return arg;
+            case "bytes":
+                return "x".repeat(Integer.parseInt(arg));
+            case "colors":
+                return "§6There are §c" + playerNames.size() + "§6 of a max of §c" + settings.getMaxPlayers() + "§6 players online: §r"
+                        + String.join("§7, §r", playerNames);
+            default:
+                if (settings.getCommandHandler() != null) {
+                    return settings.getCommandHandler().apply(command);
+                }
+                return "Unknown or incomplete command, see below for error";
+        }
+    }
+
+    private static void respond(OutputStream out, int requestId, String output) throws IOException {
+        byte[] bytes = output.getBytes(StandardCharsets.ISO_8859_1);
+        int offset = 0;
+        do {
+            int length = Math.min(MAX_RESPONSE_PAYLOAD, bytes.length - offset);
+            writePacket(out, requestId, TYPE_RESPONSE, bytes, offset, length);
+            offset += length;
+        } while (offset < bytes.length);
+    }
+
+    private static ByteBuffer readPacket(InputStream in) throws IOException {
+        byte[] lengthBytes = in.readNBytes(4);
+        if (lengthBytes.length < 4) {
+            throw new EOFException();
+        }
+        int length = ByteBuffer.wrap(lengthBytes).order(ByteOrder.LITTLE_ENDIAN).getInt();
+        if (length < 10 || length > 1460) {
+            throw new IOException("bad packet length " + length);
+        }
+
+        byte[] data = in.readNBytes(length);
+        if (data.length < length) {
+            throw new EOFException();
+        }
+        return ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static void writePacket(OutputStream out, int requestId, int type, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.ISO_8859_1);
+        writePacket(out, requestId, type, bytes, 0, bytes.length);
+    }
+
+    private static void writePacket(OutputStream out, int requestId, int type, byte[] body, int offset, int length) throws IOException {
+        ByteBuffer packet = ByteBuffer.allocate(14 + length).order(ByteOrder.LITTLE_ENDIAN);
+        packet.putInt(10 + length).putInt(requestId).putInt(type).put(body, offset, length).put((byte) 0).put((byte) 0);
+        out.write(packet.array());
+    }
+
+    // ---- query ----
+
+    private void queryLoop() {
+        byte[] buffer = new byte[1500];
+        while (!closed) {
+            try {
+                DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+                querySocket.receive(packet);
+                if (!settings.isQueryEnabled()) {
+                    continue; // enable-query=false, nothing listens on the port
+                }
+                byte[] reply = handleQuery(packet.getData(), packet.getLength(), packet.getSocketAddress());
+                if (reply == null) {
+                    continue;
+                }
+
+                queries.incrementAndGet();
+                for (byte[] part : split(reply)) {
+                    if (settings.getPacketLoss() > 0 && ThreadLocalRandom.current().nextDouble() < settings.getPacketLoss()) {
+                        dropped.incrementAndGet();
+                        continue;
+                    }
+
+                    DatagramPacket response = new DatagramPacket(part, part.length, packet.getSocketAddress());
+                    long delay = latencyNanos();
+                    if (delay == 0) {
+                        querySocket.send(response);
+                    } else {
+                        replies.schedule(() -> send(response), delay, TimeUnit.NANOSECONDS);
+                    }
+                }
+            } catch (IOException e) {
+                if (!closed) {
+                    logger.warn("fake query receive failed :: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    // the body after the 16 byte splitnum header in chunks, each with the header again and its index in byte 14
+    private List<byte[]> split(byte[] reply) {
+        int splitAt = settings.getSplitAt();
+        if (splitAt <= 0 || reply.length <= 16 + splitAt || reply[0] != 0 || reply[5] != 's') {
+            return List.of(reply);
+        }
+        List<byte[]> parts = new ArrayList<>();
+        int count = (reply.length - 16 + splitAt - 1) / splitAt;
+        for (int i = 0; i < count; i++) {
+            int from = 16 + i * splitAt;
+            int to = Math.min(reply.length, from + splitAt);
+            byte[] part = new byte[16 + to - from];
+            System.arraycopy(reply, 0, part, 0, 16);
+            System.arraycopy(reply, from, part, 16, to - from);
+            part[14] = (byte) (i == count - 1 ? i | 0x80 : i);
+            parts.add(part);
+        }
+        return parts;
+    }
+
+    private void send(DatagramPacket packet) {
+        try {
+            querySocket.send(packet);
+        } catch (IOException e) {
+            logger.debug("fake query send failed :: {}", e.getMessage());
+        }
+    }
+
+    private byte[] handleQuery(byte[] data, int length, SocketAddress from) {
+        if (length < 7 || (data[0] & 0xFF) != 0xFE || (data[1] & 0xFF) != 0xFD) {
+            return null;
+        }
+        int type = data[2];
+        int sessionId = ByteBuffer.wrap(data, 3, 4).getInt() & 0x0F0F0F0F; // vanilla masks the session id like this
+
+        if (type == 9) {
+            Token token = new Token(ThreadLocalRandom.current().nextInt(1, Integer.MAX_VALUE), System.nanoTime());
+            tokens.put(from, token);
+
+            ByteArrayOutputStream reply = header(9, sessionId);
+            writeString(reply, Integer.toString(token.value));
+            return reply.toByteArray();
+        }
+
+        if (type == 0 && length >= 11) {
+            Token token = tokens.get(from);
+            int sent = ByteBuffer.wrap(data, 7, 4).getInt();
+            if (token == null || token.value != sent
+                    || System.nanoTime() - token.issuedAt > settings.getTokenLifetime().toNanos()) {
+                return null; // vanilla ignores bad tokens
+            }
+            return length >= 15 ? fullStat(sessionId) : basicStat(sessionId);
+        }
+        return null;
+    }
+
+    private byte[] basicStat(int sessionId) {
+        ByteArrayOutputStream reply = header(0, sessionId);
+        writeString(reply, settings.getMotd());
+        writeString(reply, "SMP");
+        writeString(reply, "world");
+        writeString(reply, Integer.toString(playerNames.size()));
+        writeString(reply, Integer.toString(settings.getMaxPlayers()));
+        reply.write(25565 & 0xFF); // port is little endian here, for some reason
+        reply.write(25565 >>> 8);
+        writeString(reply, "127.0.0.1");
+        return reply.toByteArray();
+    }
+
+    private byte[] fullStat(int sessionId) {
+        return fullStatReply(settings, List.copyOf(playerNames), sessionId);
+    }
+
+    /**
+     * A full stat reply byte for byte the way vanilla builds it. Public for parser benchmarks.
+     */
+    public static byte[] fullStatReply(FakeServerSettings settings, List<String> playerNames, int sessionId) {
+        ByteArrayOutputStream reply = header(0, sessionId);
+        reply.writeBytes(new byte[]{'s', 'p', 'l', 'i', 't', 'n', 'u', 'm', 0, (byte) 0x80, 0});
+
+        String[][] values = {
+                {"hostname", settings.getMotd()},
+                {"gametype", "SMP"},
+                {"game_id", "MINECRAFT"},
+                {"version", settings.getVersion()},
+                {"plugins", ""},
+                {"map", "world"},
+                {"numplayers", Integer.toString(playerNames.size())},
+                {"maxplayers", Integer.toString(settings.getMaxPlayers())},
+                {"hostport", "25565"},
+                {"hostip", "127.0.0.1"},
+        };
+        for (String[] kv : values) {
+            writeString(reply, kv[0]);
+            writeString(reply, kv[1]);
+        }
+        reply.write(0);
+
+        reply.writeBytes(new byte[]{1, 'p', 'l', 'a', 'y', 'e', 'r', '_', 0, 0});
+        for (String name : playerNames) {
+            writeString(reply, name);
+        }
+        reply.write(0);
+        return reply.toByteArray();
+    }
+
+    private static ByteArrayOutputStream header(int type, int sessionId) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+        out.write(type);
+        out.writeBytes(ByteBuffer.allocate(4).putInt(sessionId).array());
+        return out;
+    }
+
+    private static void writeString(ByteArrayOutputStream out, String value) {
+        out.writeBytes(value.getBytes(StandardCharsets.UTF_8));
+        out.write(0);
+    }
+
+    // ---- server list ping ----
+
+    private void pingLoop() {
+        while (!closed) {
+            try {
+                Socket socket = pingSocket.accept();
+                socket.setTcpNoDelay(true);
+                daemon("fake-ping-conn").newThread(() -> servePing(socket)).start();
+            } catch (IOException e) {
+                if (!closed) {
+                    logger.warn("fake ping accept failed :: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    // handshake, status request, status response, then the client hangs up. ping/pong is not implemented
+    private void servePing(Socket socket) {
+        try (socket) {
+            InputStream in = socket.getInputStream();
+            readFrame(in); // handshake, we don't care what it says
+            readFrame(in); // status request
+            sleepLatency();
+            pings.incrementAndGet();
+
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            writeVarInt(body, 0x00);
+            byte[] json = statusJson().getBytes(StandardCharsets.UTF_8);
+            writeVarInt(body, json.length);
+            body.writeBytes(json);
+
+            ByteArrayOutputStream frame = new ByteArrayOutputStream();
+            writeVarInt(frame, body.size());
+            body.writeTo(frame);
+            socket.getOutputStream().write(frame.toByteArray());
+            socket.getOutputStream().flush();
+            in.read(); // until the client closes
+        } catch (IOException e) {
+            if (!closed) {
+                logger.debug("fake ping connection ended :: {}", e.getMessage());
+            }
+        }
+    }
+
+    private String statusJson() {
+        List<String> playerNames = List.copyOf(this.playerNames);
+        StringBuilder sample = new StringBuilder();
+        for (int i = 0; i < Math.min(12, playerNames.size()); i++) {
+            sample.append(i == 0 ? "" : ",").append("{\"name\":\"").append(playerNames.get(i)).append("\",\"id\":\"00000000-0000-0000-0000-00000000000").append(i % 10).append("\"}");
+        }
+        return "{\"version\":{\"name\":\"" + settings.getVersion() + "\",\"protocol\":767},"
+                + "\"players\":{\"max\":" + settings.getMaxPlayers() + ",\"online\":" + playerNames.size() + ",\"sample\":[" + sample + "]},"
+                + "\"description\":{\"text\":\"\",\"extra\":[{\"text\":\"" + settings.getMotd() + "\"}]}}";
+    }
+
+    private static byte[] readFrame(InputStream in) throws IOException {
+        byte[] frame = in.readNBytes(readVarInt(in));
+        if (frame.length == 0) {
+            throw new EOFException();
+        }
+        return frame;
+    }
+
+    private static int readVarInt(InputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.read();
+            if (b < 0) {
+                throw new EOFException();
+            }
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("VarInt too long");
+    }
+
+    private static void writeVarInt(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    // ---- misc ----
+
+    private void sleepLatency() {
+        long nanos = latencyNanos();
+        if (nanos > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(nanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private long latencyNanos() {
+        long base = settings.getLatency().toNanos();
+        long jitter = settings.getLatencyJitter().toNanos();
+        return jitter > 0 ? base + ThreadLocalRandom.current().nextLong(jitter) : base;
+    }
+
+    private static java.util.concurrent.ThreadFactory daemon(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private record Token(int value, long issuedAt) {
+    }
+}
@@ -0,0 +1,45 @@
+package com.arhum.validator.fake;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * Knobs for {@link FakeMinecraftServer}. Defaults behave like a healthy, empty vanilla server on localhost.
+ */
+@Getter
+@Setter
+public class FakeServerSettings {
+
+    private String rconPassword = "password";
+
+    // added before every rcon answer and every udp reply, plus up to latencyJitter on top
+    private Duration latency = Duration.ZERO;
+    private Duration latencyJitter = Duration.ZERO;
+
+    // the real server runs rcon commands on its main thread, one at a time across all connections
+    private boolean serializeCommands = true;
+
+    // false behaves like enable-query=false, udp queries get no answer at all. the ping still works
+    private boolean queryEnabled = true;
+
+    // chance (0..1) that a udp reply is silently dropped, handshakes included
+    private double packetLoss = 0;
+
+    private int players = 0;
+    private int maxPlayers = 20;
+    private String motd = "A Minecraft Server";
+    private String version = "1.21.1";
+
+    // full stat replies longer than this many bytes (after the header) go out split over several datagrams the
+    // GameSpy4 way, 0 sends everything in one like vanilla does
+    private int splitAt = 0;
+
+    // vanilla forgets every challenge token every 30 seconds
+    private Duration tokenLifetime = Duration.ofSeconds(30);
+
+    // answers commands the built in ones don't know, null for the vanilla "unknown command" reply
+    private Function<String, String> commandHandler;
+}
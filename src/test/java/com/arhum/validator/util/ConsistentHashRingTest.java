@@ -0,0 +1,92 @@
+package com.arhum.validator.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConsistentHashRingTest {
+
+    private static final int KEYS = 10_000;
+
+    private static String key(int i) {
+        return "10." + (i >> 16 & 255) + "." + (i >> 8 & 255) + "." + (i & 255) + "/32";
+    }
+
+    private static Map<String, String> placement(ConsistentHashRing ring) {
+        Map<String, String> owners = new HashMap<>();
+        for (int i = 0; i < KEYS; i++) {
+            owners.put(key(i), ring.get(key(i)));
+        }
+        return owners;
+    }
+
+    @Test
+    void placementIsStable() {
+        List<String> members = List.of("mc", "mc-1", "mc-2");
+
+        // same members in any order, same answer every time
+        assertEquals(placement(new ConsistentHashRing(members, 64)), placement(new ConsistentHashRing(List.of("mc-2", "mc", "mc-1"), 64)));
+        assertEquals(Set.copyOf(members), new ConsistentHashRing(members, 64).members());
+    }
+
+    @Test
+    void keysAreSpreadOverAllMembers() {
+        Map<String, Integer> counts = new HashMap<>();
+        placement(new ConsistentHashRing(List.of("mc", "mc-1", "mc-2", "mc-3"), 64)).values().forEach(owner -> counts.merge(owner, 1, Integer::sum));
+
+        assertEquals(4, counts.size());
+        for (int count : counts.values()) {
+            assertTrue(count > KEYS / 4 / 2 && count < KEYS / 4 * 2, counts.toString());
+        }
+    }
+
+    @Test
+    void addingAMemberOnlyMovesKeysToIt() {
+        ConsistentHashRing before = new ConsistentHashRing(List.of("mc", "mc-1", "mc-2"), 64);
+        ConsistentHashRing after = before.with("mc-3");
+
+        Map<String, String> old = placement(before);
+        Map<String, String> now = placement(after);
+        int moved = 0;
+        for (int i = 0; i < KEYS; i++) {
+            String key = key(i);
+            if (!old.get(key).equals(now.get(key))) {
+                assertEquals("mc-3", now.get(key), key);
+                moved++;
+            }
+        }
+        // about a quarter, nowhere near a reshuffle
+        assertTrue(moved > KEYS / 8 && moved < KEYS / 2, "moved " + moved);
+    }
+
+    @Test
+    void removingAMemberOnlyMovesItsOwnKeys() {
+        ConsistentHashRing before = new ConsistentHashRing(List.of("mc", "mc-1", "mc-2", "mc-3"), 64);
+        ConsistentHashRing after = before.without("mc-3");
+
+        Map<String, String> old = placement(before);
+        Map<String, String> now = placement(after);
+        for (int i = 0; i < KEYS; i++) {
+            String key = key(i);
+            if (!old.get(key).equals(now.get(key))) {
+                assertEquals("mc-3", old.get(key), key);
+            }
+            assertNotEquals("mc-3", now.get(key), key);
+        }
+        assertEquals(placement(before.without("mc-3")), placement(new ConsistentHashRing(List.of("mc", "mc-1", "mc-2"), 64)));
+    }
+
+    @Test
+    void needsAMember() {
+        assertThrows(IllegalArgumentException.class, () -> new ConsistentHashRing(List.of(), 64));
+        assertEquals("mc", new ConsistentHashRing(List.of("mc"), 64).get("1.2.3.4/32"));
+    }
+}
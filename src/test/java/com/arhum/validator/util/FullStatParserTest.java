@@ -0,0 +1,156 @@
+package com.arhum.validator.util;
+
+import com.arhum.validator.fake.FakeMinecraftServer;
+import com.arhum.validator.fake.FakeServerSettings;
+import com.arhum.validator.model.response.MOTDResponse;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FullStatParserTest {
+
+    private static final List<String> PLAYERS = List.of("Alex", "Steve", "Jürgen");
+
+    private static byte[] reply(List<String> players) {
+        FakeServerSettings settings = new FakeServerSettings();
+        settings.setMotd("§6A Minecraft Server");
+        settings.setVersion("1.21.1");
+        settings.setMaxPlayers(20);
+        return FakeMinecraftServer.fullStatReply(settings, players, 42);
+    }
+
+    @Test
+    void parsesAWholeReply() {
+        byte[] reply = reply(PLAYERS);
+        MOTDResponse response = FullStatParser.parse(reply, reply.length, 1234);
+
+        assertEquals("§6A Minecraft Server", response.getHostname());
+        assertEquals("SMP", response.getGameType());
+        assertEquals("MINECRAFT", response.getGameId());
+        assertEquals("1.21.1", response.getVersion());
+        assertEquals("world", response.getMap());
+        assertEquals(3, response.getNumPlayers());
+        assertEquals(20, response.getMaxPlayers());
+        assertEquals(25565, response.getHostPort());
+        assertEquals(PLAYERS, response.getPlayers());
+        assertEquals(1234, response.getFetchedAt());
+        assertFalse(response.isTruncated());
+    }
+
+    @Test
+    void onlyTheLengthGivenIsRead() {
+        byte[] reply = reply(PLAYERS);
+        byte[] padded = Arrays.copyOf(reply, reply.length + 100);
+        Arrays.fill(padded, reply.length, padded.length, (byte) 'x');
+
+        MOTDResponse response = FullStatParser.parse(padded, reply.length, 0);
+        assertEquals(PLAYERS, response.getPlayers());
+        assertFalse(response.isTruncated());
+    }
+
+    @Test
+    void emptyServer() {
+        byte[] reply = reply(List.of());
+        MOTDResponse response = FullStatParser.parse(reply, reply.length, 0);
+
+        assertEquals(0, response.getNumPlayers());
+        assertTrue(response.getPlayers().isEmpty());
+        assertFalse(response.isTruncated());
+    }
+
+    @Test
+    void replyCutInThePlayerListKeepsTheWholeNames() {
+        byte[] reply = reply(PLAYERS);
+        int cut = indexOf(reply, "Steve") + 3; // in the middle of the second name
+
+        MOTDResponse response = FullStatParser.parse(reply, cut, 0);
+        assertEquals(List.of("Alex"), response.getPlayers());
+        assertEquals(3, response.getNumPlayers());
+        assertEquals("1.21.1", response.getVersion());
+        assertTrue(response.isTruncated());
+    }
+
+    @Test
+    void replyCutRightBeforeTheEndOfTheListIsTruncated() {
+        byte[] reply = reply(PLAYERS);
+
+        MOTDResponse response = FullStatParser.parse(reply, reply.length - 1, 0);
+        assertEquals(PLAYERS, response.getPlayers());
+        assertTrue(response.isTruncated());
+    }
+
+    @Test
+    void replyCutInTheValuesKeepsWhatCameBefore() {
+        byte[] reply = reply(PLAYERS);
+        int cut = indexOf(reply, "numplayers") + 4;
+
+        MOTDResponse response = FullStatParser.parse(reply, cut, 0);
+        assertEquals("1.21.1", response.getVersion());
+        assertEquals("world", response.getMap());
+        assertEquals(0, response.getNumPlayers());
+        assertTrue(response.getPlayers().isEmpty());
+        assertTrue(response.isTruncated());
+    }
+
+    @Test
+    void firstPartOfASplitReplyIsTruncated() {
+        byte[] reply = reply(PLAYERS);
+        int index = indexOf(reply, "splitnum") + "splitnum".length() + 1;
+        reply[index] = 0x00; // part 0, without the flag of the last part
+
+        MOTDResponse response = FullStatParser.parse(reply, reply.length, 0);
+        assertEquals(PLAYERS, response.getPlayers());
+        assertTrue(response.isTruncated());
+    }
+
+    @Test
+    void tooShortForAnything() {
+        MOTDResponse response = FullStatParser.parse(new byte[]{0, 0, 0, 0, 42}, 5, 0);
+
+        assertEquals("", response.getHostname());
+        assertTrue(response.getPlayers().isEmpty());
+        assertTrue(response.isTruncated());
+    }
+
+    @Test
+    void badNumbersFallBack() {
+        byte[] reply = reply(PLAYERS);
+        int index = indexOf(reply, "maxplayers") + "maxplayers".length() + 1;
+        reply[index] = 'x'; // "x0"
+
+        MOTDResponse response = FullStatParser.parse(reply, reply.length, 0);
+        assertEquals(0, response.getMaxPlayers());
+        assertEquals(3, response.getNumPlayers());
+    }
+
+    @Test
+    void unchangedValuesAndNamesAreTakenFromThePreviousSnapshot() {
+        byte[] reply = reply(PLAYERS);
+        MOTDResponse previous = FullStatParser.parse(reply, reply.length, 0);
+        MOTDResponse next = FullStatParser.parse(reply, reply.length, 1, previous);
+
+        assertSame(previous.getVersion(), next.getVersion());
+        assertSame(previous.getPlayers().get(0), next.getPlayers().get(0));
+        assertEquals(previous.getPlayers(), next.getPlayers());
+
+        // someone left, the names after them moved up and are still right
+        byte[] changed = reply(List.of("Steve", "Jürgen"));
+        assertEquals(List.of("Steve", "Jürgen"), FullStatParser.parse(changed, changed.length, 2, previous).getPlayers());
+    }
+
+    private static int indexOf(byte[] data, String ascii) {
+        byte[] needle = ascii.getBytes();
+        for (int i = 0; i + needle.length <= data.length; i++) {
+            if (Arrays.equals(data, i, i + needle.length, needle, 0, needle.length)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException(ascii + " not in reply");
+    }
+}
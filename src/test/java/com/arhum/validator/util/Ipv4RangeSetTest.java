@@ -0,0 +1,99 @@
+package com.arhum.validator.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class Ipv4RangeSetTest {
+
+    @Test
+    void parsesAddressesAndPrefixes() {
+        assertArrayEquals(new long[]{0x01020304L, 0x01020304L}, Ipv4RangeSet.parse("1.2.3.4"));
+        assertArrayEquals(new long[]{0x01020304L, 0x01020304L}, Ipv4RangeSet.parse("1.2.3.4/32"));
+        assertArrayEquals(new long[]{0x0A000000L, 0x0AFFFFFFL}, Ipv4RangeSet.parse("10.0.0.0/8"));
+        assertArrayEquals(new long[]{0L, 0xFFFFFFFFL}, Ipv4RangeSet.parse("0.0.0.0/0"));
+        assertArrayEquals(new long[]{0xFFFFFFFFL, 0xFFFFFFFFL}, Ipv4RangeSet.parse("255.255.255.255/32"));
+    }
+
+    @Test
+    void dropsHostBits() {
+        assertArrayEquals(Ipv4RangeSet.parse("10.0.0.0/8"), Ipv4RangeSet.parse("10.1.2.3/8"));
+        assertArrayEquals(Ipv4RangeSet.parse("0.0.0.0/0"), Ipv4RangeSet.parse("192.168.1.1/0"));
+    }
+
+    @Test
+    void rejectsMalformedInput() {
+        for (String bad : Arrays.asList(null, "", "1.2.3", "1.2.3.4.5", "1.2.3.256", "1..2.3", ".1.2.3", "1.2.3.4.",
+                "1.2.3.4/33", "1.2.3.4/-1", "1.2.3.4/", "1.2.3.4/x", "1.2.3.4/+8", "1.2.3.4/008", "a.b.c.d", "::1/128", "2001:db8::/32", " 1.2.3.4")) {
+            assertNull(Ipv4RangeSet.parse(bad), bad);
+        }
+    }
+
+    @Test
+    void containsWholeRangesOnly() {
+        Ipv4RangeSet set = Ipv4RangeSet.of(List.of("10.0.0.0/8", "192.168.1.7/32"));
+
+        assertTrue(set.contains("10.0.0.0/8"));
+        assertTrue(set.contains("10.200.3.4/32"));
+        assertTrue(set.contains("10.128.0.0/9"));
+        assertTrue(set.contains("192.168.1.7"));
+        assertFalse(set.contains("192.168.1.6/32"));
+        assertFalse(set.contains("192.168.1.0/24")); // only one address of it is in
+        assertFalse(set.contains("10.0.0.0/7"));
+        assertFalse(set.contains("11.0.0.0/32"));
+        assertFalse(set.contains("9.255.255.255/32"));
+        assertFalse(set.contains("not an address"));
+    }
+
+    @Test
+    void mergesOverlappingAndTouchingRanges() {
+        // 10.0.0.0/25 and 10.0.0.128/25 touch, the /32 sits inside, 10.0.2.0/24 leaves a gap
+        Ipv4RangeSet set = Ipv4RangeSet.of(List.of("10.0.2.0/24", "10.0.0.128/25", "10.0.0.0/25", "10.0.0.5/32", "10.0.0.0/25"));
+
+        assertEquals(2, set.intervals());
+        assertTrue(set.contains("10.0.0.0/24")); // only contained because the halves were merged
+        assertFalse(set.contains("10.0.1.0/32"));
+        assertFalse(set.contains("10.0.0.0/22"));
+        assertTrue(set.contains("10.0.2.255/32"));
+    }
+
+    @Test
+    void everythingAndTheEdges() {
+        Ipv4RangeSet all = Ipv4RangeSet.of(List.of("0.0.0.0/0"));
+        assertEquals(1, all.intervals());
+        assertTrue(all.contains("0.0.0.0/32"));
+        assertTrue(all.contains("255.255.255.255/32"));
+        assertTrue(all.contains("0.0.0.0/0"));
+
+        Ipv4RangeSet edges = Ipv4RangeSet.of(List.of("0.0.0.0/32", "255.255.255.255/32"));
+        assertEquals(2, edges.intervals());
+        assertTrue(edges.contains("0.0.0.0"));
+        assertTrue(edges.contains("255.255.255.255"));
+        assertFalse(edges.contains("0.0.0.1"));
+        assertFalse(edges.contains("255.255.255.254"));
+    }
+
+    @Test
+    void skipsWhatIsNotIpv4() {
+        Ipv4RangeSet set = Ipv4RangeSet.of(List.of("1.2.3.4/32", "2001:db8::/32", "1.2.3.999/32"));
+
+        assertEquals(1, set.intervals());
+        assertEquals(2, set.skipped());
+        assertTrue(set.contains("1.2.3.4/32"));
+    }
+
+    @Test
+    void emptySetContainsNothing() {
+        Ipv4RangeSet set = Ipv4RangeSet.of(List.of());
+
+        assertEquals(0, set.intervals());
+        assertFalse(set.contains("0.0.0.0/32"));
+    }
+}
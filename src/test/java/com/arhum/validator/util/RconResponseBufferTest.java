@@ -0,0 +1,108 @@
+package com.arhum.validator.util;
+
+import com.arhum.validator.model.rcon.RconPacket;
+import com.arhum.validator.model.response.RconTextSpan;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RconResponseBufferTest {
+
+    private static RconResponseBuffer buffer(String latin1) {
+        RconResponseBuffer buffer = new RconResponseBuffer(4); // small, so appending has to grow it
+        byte[] bytes = latin1.getBytes(RconPacket.CHARSET);
+        buffer.append(bytes, 0, bytes.length);
+        return buffer;
+    }
+
+    @Test
+    void collectsFragments() {
+        RconResponseBuffer buffer = buffer("There are 2");
+        byte[] rest = " of a max of 20 players online".getBytes(RconPacket.CHARSET);
+        buffer.append(rest, 0, rest.length);
+        buffer.append((byte) '!');
+
+        assertEquals("There are 2 of a max of 20 players online!", buffer.toString());
+        buffer.reset();
+        assertEquals(0, buffer.length());
+        assertEquals("", buffer.toString());
+    }
+
+    @Test
+    void stripsEveryCode() {
+        assertEquals("There are 2 of a max of 20 players online: ",
+                buffer("§6There are §c2§6 of a max of §c20§6 players online: §r").toStrippedString());
+        assertEquals("plain", buffer("plain").toStrippedString());
+        assertEquals("", buffer("§a§l").toStrippedString());
+        assertEquals("ab", buffer("a§§b").toStrippedString()); // the second sign is the first one's code
+    }
+
+    @Test
+    void carriesACodeSplitAcrossFragments() {
+        RconResponseBuffer first = buffer("§aHello §");
+        boolean dangling = first.stripFormatting(false);
+        assertEquals("Hello ", first.toString());
+        assertTrue(dangling);
+
+        RconResponseBuffer second = buffer("cworld");
+        dangling = second.stripFormatting(dangling);
+        assertEquals("world", second.toString());
+        assertFalse(dangling);
+    }
+
+    @Test
+    void anEmptyFragmentStillOwesTheCodeByte() {
+        RconResponseBuffer empty = buffer("");
+        assertTrue(empty.stripFormatting(true));
+
+        RconResponseBuffer next = buffer("cworld");
+        assertFalse(next.stripFormatting(true));
+        assertEquals("world", next.toString());
+    }
+
+    @Test
+    void splitsIntoStyledSpans() {
+        List<RconTextSpan> spans = buffer("§6There are §c§l2§r players §oonline").toSpans();
+
+        assertEquals(List.of("There are ", "2", " players ", "online"), spans.stream().map(RconTextSpan::getText).toList());
+
+        assertEquals("gold", spans.get(0).getColor());
+        assertFalse(spans.get(0).isBold());
+
+        assertEquals("red", spans.get(1).getColor());
+        assertTrue(spans.get(1).isBold());
+
+        assertNull(spans.get(2).getColor());
+        assertFalse(spans.get(2).isBold());
+
+        assertTrue(spans.get(3).isItalic());
+    }
+
+    @Test
+    void aColourResetsTheStyles() {
+        List<RconTextSpan> spans = buffer("§l§nbold§9blue§Fwhite§kx§zy").toSpans();
+
+        assertEquals(List.of("bold", "blue", "white", "x", "y"), spans.stream().map(RconTextSpan::getText).toList());
+        assertTrue(spans.get(0).isBold());
+        assertTrue(spans.get(0).isUnderlined());
+        assertEquals("blue", spans.get(1).getColor());
+        assertFalse(spans.get(1).isBold());
+        assertFalse(spans.get(1).isUnderlined());
+        assertEquals("white", spans.get(2).getColor());
+        assertTrue(spans.get(3).isObfuscated());
+        assertTrue(spans.get(4).isObfuscated()); // unknown code changes nothing
+    }
+
+    @Test
+    void spansOfPlainAndEmptyText() {
+        assertEquals(List.of("plain"), buffer("plain").toSpans().stream().map(RconTextSpan::getText).toList());
+        assertTrue(buffer("").toSpans().isEmpty());
+        assertTrue(buffer("§a").toSpans().isEmpty());
+        assertEquals(List.of("end"), buffer("end§").toSpans().stream().map(RconTextSpan::getText).toList()); // dangling sign
+    }
+}
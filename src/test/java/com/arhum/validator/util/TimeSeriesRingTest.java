@@ -0,0 +1,113 @@
+package com.arhum.validator.util;
+
+import com.arhum.validator.model.response.HistoryPointResponse;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimeSeriesRingTest {
+
+    private static final long SECOND = 1000;
+
+    // 4 slots of a second each
+    private final TimeSeriesRing ring = new TimeSeriesRing(Duration.ofSeconds(1), 4);
+
+    @Test
+    void aggregatesSamplesOfOneSlot() {
+        ring.record(10 * SECOND, true, 2, 10);
+        ring.record(10 * SECOND + 500, true, 6, 30);
+        ring.record(10 * SECOND + 900, false, 0, 0);
+
+        List<HistoryPointResponse> points = ring.read(10 * SECOND, 10 * SECOND, 10);
+        assertEquals(1, points.size());
+        HistoryPointResponse point = points.get(0);
+        assertEquals(10 * SECOND, point.getAt());
+        assertEquals(2, point.getSamples());
+        assertEquals(1, point.getOffline());
+        assertEquals(4.0, point.getPlayersAvg());
+        assertEquals(2, point.getPlayersMin());
+        assertEquals(6, point.getPlayersMax());
+        assertEquals(20.0, point.getLatencyAvgMillis());
+        assertEquals(30, point.getLatencyMaxMillis());
+    }
+
+    @Test
+    void wrapsAroundAndForgetsWhatItLapped() {
+        for (int second = 0; second < 10; second++) {
+            ring.record(second * SECOND, true, second, 1);
+        }
+
+        // only the last four seconds are left, however far back the read asks
+        List<HistoryPointResponse> points = ring.read(0, 9 * SECOND, 100);
+        assertEquals(List.of(6L, 7L, 8L, 9L), points.stream().map(p -> p.getAt() / SECOND).toList());
+        assertEquals(List.of(6, 7, 8, 9), points.stream().map(HistoryPointResponse::getPlayersMax).toList());
+    }
+
+    @Test
+    void aReusedSlotStartsOver() {
+        ring.record(1 * SECOND, true, 50, 100);
+        ring.record(5 * SECOND, true, 1, 1); // same slot, four seconds later
+
+        List<HistoryPointResponse> points = ring.read(5 * SECOND, 5 * SECOND, 10);
+        assertEquals(1, points.size());
+        assertEquals(1, points.get(0).getSamples());
+        assertEquals(1, points.get(0).getPlayersMax());
+        assertEquals(1, points.get(0).getLatencyMaxMillis());
+
+        // and the lapped second is gone, not read back under its old time
+        assertTrue(ring.read(1 * SECOND, 1 * SECOND, 10).isEmpty());
+    }
+
+    @Test
+    void lateSamplesForALappedSlotAreDropped() {
+        ring.record(5 * SECOND, true, 1, 1);
+        ring.record(1 * SECOND, true, 50, 100);
+
+        HistoryPointResponse point = ring.read(5 * SECOND, 5 * SECOND, 10).get(0);
+        assertEquals(1, point.getSamples());
+        assertEquals(1, point.getPlayersMax());
+    }
+
+    @Test
+    void mergesSlotsIntoWiderPointsAndSkipsGaps() {
+        ring.record(0, true, 1, 10);
+        ring.record(1 * SECOND, true, 3, 20);
+        ring.record(3 * SECOND, false, 0, 0);
+
+        List<HistoryPointResponse> points = ring.read(0, 3 * SECOND, 2);
+        assertEquals(2 * SECOND, ring.stepMillis(0, 3 * SECOND, 2));
+        assertEquals(2, points.size());
+
+        assertEquals(0, points.get(0).getAt());
+        assertEquals(2, points.get(0).getSamples());
+        assertEquals(2.0, points.get(0).getPlayersAvg());
+        assertEquals(1, points.get(0).getPlayersMin());
+        assertEquals(3, points.get(0).getPlayersMax());
+
+        // only offline there, no players to report
+        assertEquals(2 * SECOND, points.get(1).getAt());
+        assertEquals(0, points.get(1).getSamples());
+        assertEquals(1, points.get(1).getOffline());
+        assertEquals(0, points.get(1).getPlayersMin());
+    }
+
+    @Test
+    void checkpointRoundTrips() {
+        for (int second = 0; second < 6; second++) {
+            ring.record(second * SECOND, second % 2 == 0, second, second * 10);
+        }
+
+        TimeSeriesRing restored = new TimeSeriesRing(Duration.ofSeconds(1), 4);
+        assertTrue(restored.load(ring.toBytes()));
+        assertEquals(ring.read(0, 5 * SECOND, 100).size(), restored.read(0, 5 * SECOND, 100).size());
+        assertEquals(ring.read(0, 5 * SECOND, 1).get(0).getLatencyMaxMillis(), restored.read(0, 5 * SECOND, 1).get(0).getLatencyMaxMillis());
+
+        assertFalse(new TimeSeriesRing(Duration.ofSeconds(2), 4).load(ring.toBytes()));
+        assertFalse(new TimeSeriesRing(Duration.ofSeconds(1), 5).load(ring.toBytes()));
+    }
+}